@@ -3,6 +3,8 @@ package com;
 import com.broker.AsyncMessageBroker;
 import com.broker.EventType;
 import com.common.Database;
+import com.common.DatabaseHealth;
+import com.common.DatabaseProfile;
 import com.entities.*;
 import com.services.*;
 import com.repository.*;
@@ -97,6 +99,14 @@ public class Main {
     private static Reporting reporting;
     private static WishlistManagement wishlistSubsystem;
     private static ItemRepository itemRepository;
+    // Read-through item cache in front of SQLite; null with in-memory storage
+    private static CachedItemRepository itemCache;
+    // Pending like-count increments for SQLite; null with in-memory storage
+    private static LikeCounters likeCounters;
+    // Sharded stock of flash-sale items (-Dmall.stock.hotItems); null when none are configured
+    private static ShardedStockItemRepository stockShards;
+    // Bloom filter over wishlist pairs; null with in-memory storage
+    private static PairBloomFilter wishlistFilter;
     private static OrderRepository orderRepository;
     private static OrderItemRepository orderItemRepository;
 
@@ -139,22 +149,77 @@ public class Main {
         // ------------------------------------------------------------
         // INIT DATABASE
         // ------------------------------------------------------------
+        // Storage backend: -Dmall.storage=sqlite (default) or memory (ephemeral, no I/O)
+        boolean inMemory = "memory".equalsIgnoreCase(System.getProperty("mall.storage", "sqlite"));
+
         database = new Database();
-        database.connect("jdbc:sqlite:shopping_mall.db");
+        // Payload is the new DatabaseHealth (UP / DEGRADED / DOWN)
+        database.setHealthListener(health -> broker.publish(EventType.DATABASE_HEALTH_CHANGED, health));
+        if (!inMemory) {
+            // Tuning profile: -Dmall.db.profile=durable (default) or throughput
+            try {
+                database.connect("jdbc:sqlite:shopping_mall.db", DatabaseProfile.fromSystemProperty());
+            } catch (RuntimeException e) {
+                System.err.println("[Main] Starting without a database; reconnecting in the background.");
+            }
+        } else {
+            System.out.println("[Main] Using in-memory storage; data is discarded on exit.");
+        }
 
         // ------------------------------------------------------------
         // INIT REPOSITORIES
         // ------------------------------------------------------------
         AuthenticationService authService = new AuthenticationService();
 
-        UserRepository userRepo = new SQLiteUserRepository(database, authService);
-        itemRepository = new SQLiteItemRepository(database);
-        ItemRankingRepository rankingRepo = new InMemoryItemRankingRepository();
-        WishlistRepository wishlistRepo = new SQLiteWishlistRepository(database);
-        PaymentCardRepository cardRepo = new SQLitePaymentCardRepository(database);
-
-        orderRepository = new SQLiteOrderRepository(database);
-        orderItemRepository = new SQLiteOrderItemRepository(database);
+        UserRepository userRepo;
+        WishlistRepository wishlistRepo;
+        PaymentCardRepository cardRepo;
+        MessageRepository messageRepo;
+        ReportRepository reportRepo;
+        // Likes, wishlist entries and order lines, read in bulk for recommendations
+        InteractionRepository interactions;
+        // Live like leaderboard, loaded once below and then updated on every like
+        ItemRankingRepository rankingRepo = new LiveItemRankingRepository();
+
+        if (inMemory) {
+            userRepo = new InMemoryUserRepository(authService);
+            InMemoryItemRepository memoryItems = new InMemoryItemRepository();
+            InMemoryWishlistRepository memoryWishlist = new InMemoryWishlistRepository();
+            itemRepository = shardHotItems(memoryItems);
+            wishlistRepo = memoryWishlist;
+            cardRepo = new InMemoryPaymentCardRepository();
+            orderRepository = new InMemoryOrderRepository();
+            orderItemRepository = new InMemoryOrderItemRepository();
+            messageRepo = new InMemoryMessageRepository(userRepo);
+            reportRepo = new InMemoryReportRepository();
+            interactions = new InMemoryInteractionRepository(memoryItems, memoryWishlist, orderRepository,
+                    orderItemRepository);
+        } else {
+            userRepo = new SQLiteUserRepository(database, authService);
+            // The pair filter answers most "is this on the wishlist" checks without a query; the
+            // table is loaded in the background as parallel rowid ranges. Likes need no filter:
+            // insertLike dedups with INSERT OR IGNORE
+            wishlistFilter = PairBloomFilter.sizedFor(database, "wishlist");
+            int loaders = Math.max(1, database.getReaderCount() / 2);
+            wishlistFilter.load(database, "wishlist", "customer_id", "item_id", loaders);
+
+            wishlistRepo = new SQLiteWishlistRepository(database, wishlistFilter);
+            cardRepo = new SQLitePaymentCardRepository(database);
+            orderRepository = new SQLiteOrderRepository(database);
+            orderItemRepository = new SQLiteOrderItemRepository(database);
+            messageRepo = new SQLiteMessageRepository(database);
+            reportRepo = new SQLiteReportRepository(database);
+            interactions = new SQLiteInteractionRepository(database);
+
+            // Like counts are batched in memory and flushed (-Dmall.likes.flushMs)
+            likeCounters = new LikeCounters(database);
+            likeCounters.start();
+
+            // Item lookups are served from a bounded cache (-Dmall.cache.items entries)
+            itemCache = new CachedItemRepository(
+                    shardHotItems(new SQLiteItemRepository(database, likeCounters)), database);
+            itemRepository = itemCache;
+        }
 
         // ------------------------------------------------------------
         // INIT MANAGERS
@@ -169,6 +234,15 @@ public class Main {
         EditItemManager editItemManager = new EditItemManager(itemRepository);
         LikeManager likeManager = new LikeManager(itemRepository);
         RankingManager rankingManager = new RankingManager(rankingRepo, itemRepository);
+        rankingManager.rebuild();
+        SuggestManager suggestManager = new SuggestManager(new ItemSuggestIndex(), itemRepository);
+        suggestManager.rebuild();
+        // Built in the background; recommendations are empty until it finishes
+        RecommendationManager recommendationManager = new RecommendationManager(new ItemCoOccurrenceIndex(),
+                interactions, itemRepository);
+        recommendationManager.rebuildAsync();
+        // Fed by likes, wishlist adds and orders from now on (-Dmall.trending.halfLifeMinutes)
+        TrendingManager trendingManager = new TrendingManager(new TrendingIndex(), itemRepository);
 
         // Payment managers
         paymentCardManager = new PaymentCardManager(cardRepo);
@@ -188,20 +262,27 @@ public class Main {
         // ------------------------------------------------------------
 
         account = new AccountManagement(registerMgr, loginMgr, viewAccountMgr, editAccountMgr);
-        item = new ItemManagement(itemRepository);
-        messaging = new Messaging(database);
+        item = new ItemManagement(itemRepository, rankingManager, suggestManager, recommendationManager,
+                trendingManager);
+        messaging = new Messaging(messageRepo);
         // Initialize CreateOrderManager first
         CreateOrderManager createOrderMgr = new CreateOrderManager(itemRepository, orderRepository,
                 orderItemRepository);
+        CancelOrderManager cancelOrderMgr = new CancelOrderManager(orderRepository, orderItemRepository,
+                itemRepository);
+        // Stock is held between purchase and payment result (-Dmall.reservations.ttlMs)
+        StockReservationManager reservationMgr = new StockReservationManager(itemRepository);
         orderSubsystem = new OrderManagement(
                 createOrderMgr,
+                cancelOrderMgr,
+                reservationMgr,
                 orderRepository,
                 orderItemRepository,
-                itemRepository);
+                itemRepository,
+                inMemory ? null : database);
         paymentSubsystem = new PaymentManagement();
         // Initialize report manager and reporting subsystem
-        ReportManager reportManager = new ReportManager(new SQLiteReportRepository(database), orderRepository,
-                itemRepository);
+        ReportManager reportManager = new ReportManager(reportRepo, orderRepository, itemRepository);
         reporting = new Reporting(reportManager);
         wishlistSubsystem = new WishlistManagement(wishlistRepo, itemRepository);
 
@@ -213,6 +294,8 @@ public class Main {
 
         for (Subsystems m : modules)
             m.init(broker);
+        for (Subsystems m : modules)
+            m.start();
 
         // ============================================================
         // EVENT LISTENERS
@@ -230,6 +313,57 @@ public class Main {
             }
         }));
 
+        // Warn the operator while the database is unreachable or contended
+        broker.registerListener(EventType.DATABASE_HEALTH_CHANGED, msg -> CompletableFuture.runAsync(() -> {
+            if (msg.getPayload() instanceof DatabaseHealth health && health != DatabaseHealth.UP)
+                System.out.println(UIHelper.YELLOW + "[Main] Database is " + health
+                        + "; requests may fail until it recovers." + UIHelper.RESET);
+        }));
+
+        // Evict cached items whose likes, details or stock changed
+        if (itemCache != null) {
+            broker.registerListener(EventType.ITEM_UPDATE_SUCCESS, msg -> CompletableFuture.runAsync(() -> {
+                if (msg.getPayload() instanceof Item changed)
+                    itemCache.invalidateUnlessCurrent(changed);
+                else
+                    itemCache.invalidateAll(); // removals and failures carry only a message
+            }));
+            broker.registerListener(EventType.INVENTORY_ADJUST_REQUESTED, msg -> CompletableFuture.runAsync(() -> {
+                if (msg.getPayload() instanceof Integer itemId)
+                    itemCache.invalidate(itemId);
+                else if (msg.getPayload() instanceof Item adjusted)
+                    itemCache.invalidate(adjusted.getId());
+            }));
+            // Cancellation moves stock for every line of the order (checkout: see ORDER_CONFIRMED below)
+            broker.registerListener(EventType.ORDER_CANCEL_SUCCESS, msg -> CompletableFuture.runAsync(() -> {
+                if (msg.getPayload() instanceof Order order) {
+                    for (OrderItem line : orderItemRepository.findByOrderId(order.getId()))
+                        itemCache.invalidate(line.getItemId());
+                }
+            }));
+        }
+
+        // Wishlist adds and confirmed orders feed the recommendations and trending items (likes are fed
+        // by ItemManagement)
+        broker.registerListener(EventType.WISHLIST_ADD_SUCCESS, msg -> CompletableFuture.runAsync(() -> {
+            if (msg.getPayload() instanceof Wishlist entry) {
+                recommendationManager.onInteraction(entry.getCustomerId(), entry.getItemId());
+                trendingManager.onWishlistAdded(entry.getItemId());
+            }
+        }));
+        // A confirmed order's lines are loaded once: checkout moved their stock (cache) and each one
+        // is a purchase
+        broker.registerListener(EventType.ORDER_CONFIRMED, msg -> CompletableFuture.runAsync(() -> {
+            if (msg.getPayload() instanceof Order order) {
+                for (OrderItem line : orderItemRepository.findByOrderId(order.getId())) {
+                    if (itemCache != null)
+                        itemCache.invalidate(line.getItemId());
+                    recommendationManager.onInteraction(order.getCustomerId(), line.getItemId());
+                    trendingManager.onItemPurchased(line.getItemId());
+                }
+            }
+        }));
+
         // broker.registerListener(EventType.ITEM_LIST_RETURNED, msg ->
         // CompletableFuture.runAsync(() -> {
         // //if (!VERBOSE_LISTENERS) return;
@@ -847,6 +981,34 @@ public class Main {
         UIHelper.pause();
     }
 
+    // ============================================================
+    // HOT ITEMS
+    // ============================================================
+
+    /**
+     * Wrap repo so the items listed in -Dmall.stock.hotItems (comma-separated
+     * ids) keep their stock in -Dmall.stock.shards counters (default 8); repo
+     * itself when no items are listed.
+     */
+    private static ItemRepository shardHotItems(ItemRepository repo) {
+        String hotItems = System.getProperty("mall.stock.hotItems", "").trim();
+        if (hotItems.isEmpty())
+            return repo;
+
+        int shardCount = Integer.getInteger("mall.stock.shards", ShardedStockItemRepository.DEFAULT_SHARDS);
+        stockShards = new ShardedStockItemRepository(repo);
+        for (String id : hotItems.split(",")) {
+            try {
+                if (!stockShards.shard(Integer.parseInt(id.trim()), shardCount))
+                    System.err.println("[Main] Hot item " + id.trim() + " not found; its stock is not sharded");
+            } catch (NumberFormatException e) {
+                System.err.println("[Main] Ignoring hot item id: " + id);
+            }
+        }
+        stockShards.start();
+        return stockShards;
+    }
+
     // ============================================================
     // SHUTDOWN
     // ============================================================
@@ -857,6 +1019,15 @@ public class Main {
             m.shutdown();
 
         scanner.close();
+        if (likeCounters != null)
+            likeCounters.stop();
+        if (stockShards != null)
+            stockShards.stop();
+        database.printQueryStats();
+        if (itemCache != null)
+            itemCache.printStats();
+        if (wishlistFilter != null)
+            System.out.println("[BloomFilter] wishlist " + wishlistFilter);
         database.close();
         broker.stop();
         System.out.println(UIHelper.GREEN + "[System] Application terminated." + UIHelper.RESET);
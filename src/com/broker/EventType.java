@@ -24,14 +24,27 @@ public enum EventType {
 
     // Item Management
     ITEM_BROWSE_REQUESTED,
+    ITEM_LOOKUP_REQUESTED,
+    ITEM_LOOKUP_RETURNED,
     ITEM_SEARCH_REQUESTED,
     ITEM_LIST_RETURNED,
+    ITEM_PAGE_RETURNED,
     ITEM_LIKE_REQUESTED,
     ITEM_REFILL_REQUESTED,
     ITEM_UPLOAD_REQUESTED,
     ITEM_REMOVE_REQUESTED,
     ITEM_EDIT_REQUESTED,
     ITEM_UPDATE_SUCCESS,
+    ITEM_RANKING_REQUESTED,
+    ITEM_RANKING_RETURNED,
+    ITEM_SUGGEST_REQUESTED,
+    ITEM_SUGGESTIONS_RETURNED,
+    ITEM_LOW_STOCK_REQUESTED,
+    ITEM_LOW_STOCK_RETURNED,
+    ITEM_RECOMMENDATIONS_REQUESTED,
+    ITEM_RECOMMENDATIONS_RETURNED,
+    ITEM_TRENDING_REQUESTED,
+    ITEM_TRENDING_RETURNED,
 
     // Wishlist Management
     WISHLIST_ADD_REQUESTED,
@@ -115,5 +128,8 @@ public enum EventType {
 
     // Notification
     NOTIFICATION_SENT,
-    NOTIFICATION_FAILED
+    NOTIFICATION_FAILED,
+
+    // Database
+    DATABASE_HEALTH_CHANGED
 }
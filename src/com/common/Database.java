@@ -1,85 +1,370 @@
 package com.common;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class Database {
 
+    /** Rows pulled from the cursor per round trip when streaming */
+    public static final int STREAM_FETCH_SIZE = 256;
+
     private Connection connection;
+    private String url;
 
-    /** Connect SQLite + load schema */
-    public synchronized void connect(String url) {
-        // Database Connection Resilience - handle connection failures gracefully
-        try {
-            connection = DriverManager.getConnection(url);
+    // Read-only connections for readOne/readList; WAL lets them run beside the writer
+    // Replaced on reconnect and close; read without the Database lock
+    private volatile BlockingQueue<Connection> readers;
+    private final int readerCount = Integer.getInteger("mall.db.readers", 4);
 
-            try (Statement st = connection.createStatement()) {
-                st.execute("PRAGMA journal_mode=WAL;");
-                st.execute("PRAGMA foreign_keys=ON;");
-            }
+    private final SchemaMigrator migrator = new SchemaMigrator();
 
-            runSchema();
+    private DatabaseProfile profile = DatabaseProfile.DURABLE;
+
+    // Background WAL checkpoints and PRAGMA optimize runs
+    private ScheduledExecutorService maintenance;
+
+    // Per-statement timing; statements slower than the threshold are logged
+    private final QueryStats queryStats = new QueryStats();
+    private volatile long slowQueryThresholdMs = Long.getLong("mall.db.slowQueryMs", 100L);
+
+    // Retries for SQLITE_BUSY / SQLITE_LOCKED, on top of the profile's busy_timeout
+    private static final int BUSY_MAX_ATTEMPTS = 5;
+    private static final long BUSY_BASE_DELAY_MS = 10;
+    private static final long BUSY_MAX_DELAY_MS = 500;
 
-            System.out.println("[Database] Connected to " + url);
+    // Reconnect backoff after the connection is lost or cannot be opened
+    private static final long RECONNECT_BASE_DELAY_MS = 500;
+    private static final long RECONNECT_MAX_DELAY_MS = 30_000;
+
+    private volatile DatabaseHealth health = DatabaseHealth.DOWN;
+    private volatile Consumer<DatabaseHealth> healthListener;
+    private ScheduledExecutorService reconnector;
+    private ScheduledFuture<?> pendingReconnect;
+    private int reconnectAttempts;
+    private boolean closed;
+
+    // Transaction opened by inTransaction; only the thread holding the monitor sees it
+    private Tx currentTx;
+    private int savepointCounter;
+
+    /** Connect SQLite with the profile named by -Dmall.db.profile */
+    public void connect(String url) {
+        connect(url, DatabaseProfile.fromSystemProperty());
+    }
+
+    /**
+     * Connect SQLite + apply tuning profile + load schema.
+     * On failure the database is DOWN and keeps reconnecting in the background
+     * with exponential backoff; the exception tells the caller it is not ready yet.
+     */
+    public synchronized void connect(String url, DatabaseProfile profile) {
+        this.url = url;
+        this.profile = profile;
+        this.closed = false;
+
+        // Database Connection Resilience - handle connection failures gracefully
+        try {
+            open();
+            System.out.println("[Database] Connected to " + url + " (" + profile + " profile)");
 
         } catch (SQLException e) {
-            // Catch SQLException specifically
-            connection = null;
             System.err.println("[Database] Connection failed: " + e.getMessage());
             System.err.println("[Database] Database unavailable. Please check if the database file exists.");
+            scheduleReconnect();
             throw new RuntimeException("Database connection failed", e);
         } catch (Exception e) {
-            // Catch other exceptions
-            connection = null;
             System.err.println("[Database] Connection failed: " + e.getMessage());
+            scheduleReconnect();
             throw new RuntimeException("Database connection failed", e);
         }
     }
 
-    /** Load schema.sql from resources */
-    private void runSchema() {
+    /** Open the shared connection and everything that hangs off it; leaves nothing open on failure */
+    private void open() throws Exception {
         try {
-            InputStream in = getClass().getResourceAsStream("/com/resources/schema.sql");
-            if (in == null) {
-                System.err.println("[Database] schema.sql not found.");
-                return;
+            connection = DriverManager.getConnection(url);
+
+            try (Statement st = connection.createStatement()) {
+                for (String pragma : profile.pragmas())
+                    st.execute(pragma);
             }
 
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            StringBuilder sb = new StringBuilder();
-            String line;
+            runSchema();
+            analyzeIfNeeded();
+            openReaders(url);
+            startMaintenance();
+        } catch (Exception e) {
+            dropConnection();
+            throw e;
+        }
+
+        reconnectAttempts = 0;
+        setHealth(DatabaseHealth.UP);
+    }
 
-            while ((line = br.readLine()) != null) {
-                sb.append(line).append("\n");
+    /** Close the shared connection and readers without reporting errors; health becomes DOWN */
+    private void dropConnection() {
+        stopMaintenance();
+        closeReaders();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
             }
+            connection = null;
+        }
+        setHealth(DatabaseHealth.DOWN);
+    }
 
-            String[] statements = sb.toString().split(";");
+    // =====================================================================
+    // RECONNECT / HEALTH
+    // =====================================================================
 
-            try (Statement st = connection.createStatement()) {
-                for (String raw : statements) {
-                    String sql = raw.trim();
-                    if (sql.isEmpty())
-                        continue;
-
-                    try {
-                        st.execute(sql);
-                    } catch (SQLException ex) {
-                        System.err.println("[Database] Schema error: " + ex.getMessage());
-                    }
-                }
+    public DatabaseHealth getHealth() {
+        return health;
+    }
+
+    /** Called with the new state on every health change (e.g. to publish it on the broker) */
+    public void setHealthListener(Consumer<DatabaseHealth> listener) {
+        this.healthListener = listener;
+    }
+
+    private void setHealth(DatabaseHealth next) {
+        DatabaseHealth previous = health;
+        if (previous == next)
+            return;
+        health = next;
+
+        System.out.println("[Database] Health " + previous + " -> " + next);
+        Consumer<DatabaseHealth> listener = healthListener;
+        if (listener != null) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException e) {
+                System.err.println("[Database] Health listener failed: " + e.getMessage());
             }
+        }
+    }
 
-            System.out.println("[Database] Schema executed.");
+    /** Schedule one reconnect attempt with jittered exponential backoff, unless one is pending */
+    private synchronized void scheduleReconnect() {
+        if (closed || url == null || (pendingReconnect != null && !pendingReconnect.isDone()))
+            return;
 
+        if (reconnector == null) {
+            reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Database Reconnect");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        long ceiling = Math.min(RECONNECT_MAX_DELAY_MS, RECONNECT_BASE_DELAY_MS << Math.min(reconnectAttempts, 16));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        pendingReconnect = reconnector.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void reconnect() {
+        if (closed || connection != null)
+            return;
+
+        reconnectAttempts++;
+        try {
+            open();
+            System.out.println("[Database] Reconnected to " + url + " after " + reconnectAttempts + " attempt(s)");
         } catch (Exception e) {
-            System.err.println("[Database] Failed loading schema: " + e.getMessage());
+            System.err.println("[Database] Reconnect attempt " + reconnectAttempts + " failed: " + e.getMessage());
+            pendingReconnect = null;
+            scheduleReconnect();
+        }
+    }
+
+    /** After a failed statement: mark contention, or drop a dead connection and start reconnecting */
+    private void afterFailure(Exception e) {
+        if (e instanceof SQLException sql && isBusy(sql)) {
+            setHealth(DatabaseHealth.DEGRADED);
+            return;
+        }
+        if (connection != null && !isAlive(connection)) {
+            System.err.println("[Database] Connection lost; reconnecting in the background");
+            dropConnection();
+            scheduleReconnect();
+        }
+    }
+
+    private static boolean isAlive(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** SQLITE_BUSY (5) or SQLITE_LOCKED (6), including their extended codes */
+    private static boolean isBusy(SQLException e) {
+        int primary = e.getErrorCode() & 0xff;
+        if (primary == 5 || primary == 6)
+            return true;
+        String message = e.getMessage();
+        return message != null && (message.contains("SQLITE_BUSY") || message.contains("SQLITE_LOCKED")
+                || message.contains("database is locked"));
+    }
+
+    /**
+     * Wait before retry number attempt (full jitter); false if interrupted.
+     * Called with the monitor held and no transaction open. wait() releases the
+     * monitor for the delay, so other threads' statements run meanwhile instead
+     * of queueing behind a writer that is only waiting.
+     */
+    private boolean backoff(int attempt) {
+        long ceiling = Math.min(BUSY_MAX_DELAY_MS, BUSY_BASE_DELAY_MS << attempt);
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        try {
+            for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime())
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Bring the schema up to date; a no-op when schema_version is current */
+    private void runSchema() throws SQLException {
+        int applied = migrator.migrate(connection);
+
+        if (applied > 0)
+            System.out.println("[Database] Schema migrated to v" + migrator.latestVersion() + ".");
+        else
+            System.out.println("[Database] Schema up to date (v" + migrator.latestVersion() + ").");
+    }
+
+    /** Collect planner statistics once, when the database has never been analyzed */
+    private void analyzeIfNeeded() throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery(
+                        "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+            if (rs.next())
+                return;
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("ANALYZE;");
+        }
+    }
+
+    /** Open the read-only pool; in-memory databases are private to one connection, so they get none */
+    private void openReaders(String url) throws SQLException {
+        closeReaders();
+        if (readerCount <= 0 || isInMemory(url))
+            return;
+
+        BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(readerCount);
+        try {
+            for (int i = 0; i < readerCount; i++) {
+                Connection reader = DriverManager.getConnection(url);
+                pool.add(reader);
+                try (Statement st = reader.createStatement()) {
+                    for (String pragma : profile.readerPragmas())
+                        st.execute(pragma);
+                }
+            }
+        } catch (SQLException e) {
+            for (Connection reader : pool)
+                reader.close();
+            throw e;
+        }
+        readers = pool;
+    }
+
+    /** Return a reader to its pool, or close it if the pool was replaced by a reconnect meanwhile */
+    private void release(BlockingQueue<Connection> pool, Connection reader) {
+        if (readers == pool && pool.offer(reader))
+            return;
+        try {
+            reader.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void closeReaders() {
+        BlockingQueue<Connection> pool = readers;
+        readers = null;
+        if (pool == null)
+            return;
+
+        List<Connection> open = new ArrayList<>();
+        pool.drainTo(open);
+        for (Connection reader : open) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                System.err.println("[Database] Reader close failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void startMaintenance() {
+        stopMaintenance();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Database Maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        maintenance.scheduleWithFixedDelay(this::checkpoint,
+                profile.checkpointIntervalSeconds, profile.checkpointIntervalSeconds, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::optimize,
+                profile.optimizeIntervalMinutes, profile.optimizeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    private void stopMaintenance() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+            maintenance = null;
+        }
+    }
+
+    /** Passive WAL checkpoint: copies what it can without blocking readers or writers */
+    public synchronized void checkpoint() {
+        if (connection == null)
+            return;
+        try (Statement st = connection.createStatement()) {
+            st.execute("PRAGMA wal_checkpoint(PASSIVE);");
+        } catch (SQLException e) {
+            System.err.println("[Database] Checkpoint failed: " + e.getMessage());
         }
     }
 
+    /** Let SQLite refresh planner statistics for tables whose shape changed */
+    public synchronized void optimize() {
+        if (connection == null)
+            return;
+        try (Statement st = connection.createStatement()) {
+            st.execute("PRAGMA optimize;");
+        } catch (SQLException e) {
+            System.err.println("[Database] Optimize failed: " + e.getMessage());
+        }
+    }
+
+    public DatabaseProfile getProfile() {
+        return profile;
+    }
+
     public Connection getConnection() {
         return connection;
     }
@@ -90,101 +375,464 @@ public class Database {
 
     /** Query 1 row */
     public synchronized <T> T queryOne(String sql, ResultMapper<T> mapper, Object... params) {
+        return execute("queryOne", sql, params, null, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                fillParams(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? mapper.map(rs) : null;
+                }
+            }
+        });
+    }
+
+    /** Query list */
+    public synchronized <T> List<T> queryList(String sql, ResultMapper<T> mapper, Object... params) {
+        return execute("queryList", sql, params, new ArrayList<>(), true, conn -> {
+            List<T> list = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                fillParams(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next())
+                        list.add(mapper.map(rs));
+                }
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Stream rows to a callback one at a time instead of materializing a list.
+     * The cursor is read with a bounded fetch size and is always closed before
+     * returning, even if the callback throws. Returns the number of rows visited,
+     * or -1 if the statement failed (rows before the failure were still visited).
+     * Not retried on SQLITE_BUSY, since rows may already have reached the callback.
+     */
+    public synchronized <T> int forEachRow(String sql, ResultMapper<T> mapper, Consumer<? super T> action,
+            Object... params) {
+        int[] count = { 0 };
+        // Timing includes time spent in the callback
+        Boolean done = execute("forEachRow", sql, params, null, false, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                fillParams(ps, params);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapper.map(rs));
+                        count[0]++;
+                    }
+                }
+            }
+            return Boolean.TRUE;
+        });
+        return done == null ? -1 : count[0];
+    }
+
+    /** Update / delete */
+    public synchronized int executeUpdate(String sql, Object... params) {
+        return execute("update", sql, params, 0, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                fillParams(ps, params);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    // =====================================================================
+    // INSERT RETURN ID
+    // =====================================================================
+
+    public synchronized int executeInsertReturnId(String sql, Object... params) {
+        return execute("insert", sql, params, -1, true, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                fillParams(ps, params);
+                ps.executeUpdate();
+
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+        });
+    }
+
+    // =====================================================================
+    // BATCH INSERT / UPDATE
+    // =====================================================================
+
+    /**
+     * Run one statement for many parameter rows with JDBC batching.
+     * Outside an explicit transaction the whole batch commits atomically.
+     * Returns the number of rows affected.
+     */
+    public synchronized int executeBatch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty())
+            return 0;
+
+        Object[] summary = { rows.size() + " rows" };
+        return execute("batch", sql, summary, 0, true, conn -> {
+            boolean ownTransaction = conn.getAutoCommit();
+            if (ownTransaction)
+                conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (Object[] row : rows) {
+                    fillParams(ps, row);
+                    ps.addBatch();
+                }
+
+                int total = 0;
+                for (int n : ps.executeBatch())
+                    total += Math.max(n, 0);
+
+                if (ownTransaction)
+                    conn.commit();
+                return total;
+
+            } catch (SQLException e) {
+                // Roll back our own transaction so a busy retry starts clean
+                if (ownTransaction)
+                    conn.rollback();
+                throw e;
+            } finally {
+                if (ownTransaction)
+                    conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    /** One unit of JDBC work against the shared connection */
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection conn) throws Exception;
+    }
+
+    /**
+     * Run work on the shared connection (caller holds the monitor) with timing,
+     * failure logging and health tracking. SQLITE_BUSY / SQLITE_LOCKED are
+     * retried with jittered backoff when retryBusy is set and no explicit
+     * transaction is open (inside one, SQLite expects the caller to roll back);
+     * the monitor is released while backing off.
+     * Returns fallback on failure.
+     */
+    private <T> T execute(String op, String sql, Object[] params, T fallback, boolean retryBusy,
+            SqlWork<T> work) {
         // Database Connection Resilience - check connection before query
         if (connection == null) {
-            System.err.println("[Database] queryOne failed: Database connection unavailable");
-            return null;
+            System.err.println("[Database] " + op + " failed: Database connection unavailable");
+            if (currentTx != null && currentTx.failure == null)
+                currentTx.failure = new SQLException("Database connection unavailable");
+            scheduleReconnect();
+            return fallback;
         }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            fillParams(ps, params);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next())
-                    return mapper.map(rs);
-            }
+        long start = System.nanoTime();
+        boolean failed = false;
 
-        } catch (SQLException e) {
-            // Handle SQLException gracefully
-            System.err.println("[Database] queryOne failed: " + e.getMessage());
-            // Don't crash - return null to indicate failure
+        try {
+            for (int attempt = 1;; attempt++) {
+                // The monitor was released during a backoff; the connection may have been dropped
+                if (connection == null)
+                    throw new SQLException("Database connection unavailable");
+                try {
+                    T result = work.run(connection);
+                    if (health == DatabaseHealth.DEGRADED)
+                        setHealth(DatabaseHealth.UP);
+                    return result;
+                } catch (SQLException e) {
+                    boolean retry = retryBusy && isBusy(e) && attempt < BUSY_MAX_ATTEMPTS
+                            && connection.getAutoCommit() && backoff(attempt);
+                    if (!retry)
+                        throw e;
+                }
+            }
         } catch (Exception e) {
-            System.err.println("[Database] queryOne error: " + e.getMessage());
+            // Don't crash - log and return the fallback to indicate failure
+            failed = true;
+            logFailure(op, sql, params, e);
+            if (currentTx != null && currentTx.failure == null)
+                currentTx.failure = e;
+            afterFailure(e);
+            return fallback;
+        } finally {
+            recordTiming(sql, params, start, failed);
         }
-        return null;
     }
 
-    /** Query list */
-    public synchronized <T> List<T> queryList(String sql, ResultMapper<T> mapper, Object... params) {
+    // =====================================================================
+    // CONCURRENT READS
+    // =====================================================================
 
-        List<T> list = new ArrayList<>();
-        // Database Connection Resilience - check connection before query
-        if (connection == null) {
-            System.err.println("[Database] queryList failed: Database connection unavailable");
-            return list;
+    /**
+     * Like queryOne, but runs on a pooled read-only connection without taking
+     * the Database lock, so lookups (e.g. logins) proceed in parallel with each
+     * other and with writes. Sees only committed data; falls back to queryOne
+     * when there is no reader pool, and inside a transaction of the calling
+     * thread so the transaction reads its own writes.
+     */
+    public <T> T readOne(String sql, ResultMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>(1);
+        if (read("readOne", sql, mapper, 1, rows::add, params) == null)
+            return queryOne(sql, mapper, params);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /** Like queryList on a pooled read-only connection; see readOne */
+    public <T> List<T> readList(String sql, ResultMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>();
+        if (read("readList", sql, mapper, Integer.MAX_VALUE, rows::add, params) == null)
+            return queryList(sql, mapper, params);
+        return rows;
+    }
+
+    /**
+     * Like forEachRow on a pooled read-only connection, so several large scans
+     * can stream in parallel; see readOne. Returns the number of rows visited,
+     * or -1 if the statement failed.
+     */
+    public <T> int readEach(String sql, ResultMapper<T> mapper, Consumer<? super T> action, Object... params) {
+        int[] count = { 0 };
+        Consumer<T> counting = row -> {
+            action.accept(row);
+            count[0]++;
+        };
+        Boolean ok = read("readEach", sql, mapper, Integer.MAX_VALUE, counting, params);
+        if (ok == null)
+            return forEachRow(sql, mapper, action, params);
+        return ok ? count[0] : -1;
+    }
+
+    /**
+     * Returns null when no reader is available, so the caller can use the
+     * shared connection; otherwise whether the statement succeeded. Inside a
+     * transaction of the calling thread it also returns null: a reader would
+     * not see the transaction's own uncommitted writes.
+     */
+    private <T> Boolean read(String op, String sql, ResultMapper<T> mapper, int limit, Consumer<T> action,
+            Object... params) {
+        BlockingQueue<Connection> pool = readers;
+        if (pool == null || isInTransaction())
+            return null;
+
+        Connection reader;
+        try {
+            reader = pool.poll(profile.busyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
+        if (reader == null)
+            return null;
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            fillParams(ps, params);
+        long start = System.nanoTime();
+        boolean failed = false;
 
+        try (PreparedStatement ps = reader.prepareStatement(sql)) {
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            fillParams(ps, params);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next())
-                    list.add(mapper.map(rs));
+                for (int n = 0; n < limit && rs.next(); n++)
+                    action.accept(mapper.map(rs));
             }
 
-        } catch (SQLException e) {
-            // Handle SQLException gracefully
-            System.err.println("[Database] queryList failed: " + e.getMessage());
-            // Return empty list instead of crashing
         } catch (Exception e) {
-            System.err.println("[Database] queryList error: " + e.getMessage());
+            failed = true;
+            logFailure(op, sql, params, e);
+        } finally {
+            recordTiming(reader, sql, params, start, failed);
+            release(pool, reader);
         }
 
-        return list;
+        return !failed;
     }
 
-    /** Update / delete */
-    public synchronized int executeUpdate(String sql, Object... params) {
-        if (connection == null)
-            return 0;
+    // =====================================================================
+    // Transaction Control
+    // =====================================================================
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            fillParams(ps, params);
-            return ps.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("[Database] update failed: " + e.getMessage());
-            return 0;
+    /**
+     * Run work as one transaction on the shared connection, bound to the
+     * calling thread: the Database lock is held until commit, so statements
+     * from other threads wait instead of joining it. Repository calls made by
+     * work on this thread take part in the transaction too.
+     *
+     * Commits when work returns; rolls back and rethrows if work throws or any
+     * statement inside it failed. Called from inside another inTransaction (or
+     * via Tx.savepoint) it becomes a nested SAVEPOINT instead. A top-level
+     * transaction that fails on SQLITE_BUSY / SQLITE_LOCKED is rolled back and
+     * re-run with backoff, so work must not have side effects outside the
+     * database.
+     */
+    public synchronized <T> T inTransaction(Function<Tx, T> work) {
+        if (currentTx != null)
+            return savepoint(work);
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                return runTransaction(work);
+            } catch (DatabaseException e) {
+                boolean retry = e.getCause() instanceof SQLException sql && isBusy(sql)
+                        && attempt < BUSY_MAX_ATTEMPTS && backoff(attempt);
+                if (!retry)
+                    throw e;
+            }
         }
     }
 
-    // =====================================================================
-    // INSERT RETURN ID
-    // =====================================================================
+    /**
+     * True when the calling thread is inside inTransaction, i.e. its reads may
+     * see writes that are not committed yet.
+     */
+    public boolean isInTransaction() {
+        return Thread.holdsLock(this) && currentTx != null;
+    }
 
-    public synchronized int executeInsertReturnId(String sql, Object... params) {
+    private <T> T runTransaction(Function<Tx, T> work) {
         if (connection == null)
-            return -1;
+            throw new DatabaseException("Transaction failed: Database connection unavailable");
 
-        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        Tx tx = new Tx();
+        currentTx = tx;
+        try {
+            connection.setAutoCommit(false);
+            T result = work.apply(tx);
+            tx.throwIfFailed();
+            connection.commit();
+            return result;
 
-            fillParams(ps, params);
-            ps.executeUpdate();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new DatabaseException("Transaction failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            rollbackQuietly();
+            throw e;
+        } finally {
+            tx.active = false;
+            currentTx = null;
+            try {
+                if (connection != null)
+                    connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("[Database] Restoring autocommit failed: " + e.getMessage());
+            }
+        }
+    }
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next())
-                    return rs.getInt(1);
+    /** Nested unit inside the current transaction; only its own statements are undone on failure */
+    private <T> T savepoint(Function<Tx, T> work) {
+        Tx tx = currentTx;
+        String name = "sp_" + (++savepointCounter);
+        Exception outerFailure = tx.failure;
+        tx.failure = null;
+
+        try {
+            savepointStatement("SAVEPOINT " + name);
+            T result = work.apply(tx);
+            tx.throwIfFailed();
+            savepointStatement("RELEASE SAVEPOINT " + name);
+            return result;
+
+        } catch (RuntimeException e) {
+            try {
+                savepointStatement("ROLLBACK TO SAVEPOINT " + name);
+                savepointStatement("RELEASE SAVEPOINT " + name);
+            } catch (DatabaseException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
             }
+            throw e;
+        } finally {
+            // Whether the failure dooms the outer transaction is up to the caller catching it
+            tx.failure = outerFailure;
+        }
+    }
 
+    private void savepointStatement(String sql) {
+        if (connection == null)
+            throw new DatabaseException(sql + " failed: Database connection unavailable");
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
         } catch (SQLException e) {
-            System.err.println("[Database] insert failed: " + e.getMessage());
+            throw new DatabaseException(sql + " failed: " + e.getMessage(), e);
         }
+    }
 
-        return -1;
+    private void rollbackQuietly() {
+        try {
+            if (connection != null)
+                connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("[Database] Rollback failed: " + e.getMessage());
+        }
     }
 
-    // =====================================================================
-    // Transaction Control
-    // =====================================================================
+    /**
+     * Handle on the running transaction. Same statements as Database, but a
+     * failure throws DatabaseException (rolling back the enclosing transaction
+     * or savepoint) instead of returning a fallback value. Only valid inside
+     * the inTransaction call that created it.
+     */
+    public final class Tx {
 
+        private boolean active = true;
+        // First statement failure inside the current transaction or savepoint
+        private Exception failure;
+
+        private Tx() {
+        }
+
+        public <T> T queryOne(String sql, ResultMapper<T> mapper, Object... params) {
+            checkActive();
+            T result = Database.this.queryOne(sql, mapper, params);
+            throwIfFailed();
+            return result;
+        }
+
+        public <T> List<T> queryList(String sql, ResultMapper<T> mapper, Object... params) {
+            checkActive();
+            List<T> result = Database.this.queryList(sql, mapper, params);
+            throwIfFailed();
+            return result;
+        }
+
+        public int executeUpdate(String sql, Object... params) {
+            checkActive();
+            int result = Database.this.executeUpdate(sql, params);
+            throwIfFailed();
+            return result;
+        }
+
+        public int executeInsertReturnId(String sql, Object... params) {
+            checkActive();
+            int result = Database.this.executeInsertReturnId(sql, params);
+            throwIfFailed();
+            return result;
+        }
+
+        public int executeBatch(String sql, List<Object[]> rows) {
+            checkActive();
+            int result = Database.this.executeBatch(sql, rows);
+            throwIfFailed();
+            return result;
+        }
+
+        /** Run work in a nested savepoint of this transaction */
+        public <T> T savepoint(Function<Tx, T> work) {
+            checkActive();
+            return Database.this.inTransaction(work);
+        }
+
+        private void checkActive() {
+            if (!active || currentTx != this)
+                throw new IllegalStateException("Transaction is no longer active");
+        }
+
+        private void throwIfFailed() {
+            if (failure != null)
+                throw new DatabaseException("Transaction rolled back: " + failure.getMessage(), failure);
+        }
+    }
+
+    /** @deprecated toggles autocommit for every thread sharing the connection; use inTransaction */
+    @Deprecated
     public synchronized void beginTransaction() {
         try {
             if (connection != null)
@@ -194,6 +842,8 @@ public class Database {
         }
     }
 
+    /** @deprecated see beginTransaction */
+    @Deprecated
     public synchronized void commit() {
         try {
             if (connection != null) {
@@ -205,6 +855,8 @@ public class Database {
         }
     }
 
+    /** @deprecated see beginTransaction */
+    @Deprecated
     public synchronized void rollback() {
         try {
             if (connection != null) {
@@ -216,10 +868,179 @@ public class Database {
         }
     }
 
+    // =====================================================================
+    // ONLINE BACKUP / SNAPSHOT EXPORT
+    // =====================================================================
+
+    /** Rows copied per backup step, and the pause after each step */
+    public static final int BACKUP_ROWS_PER_STEP = 2_000;
+    public static final long BACKUP_PAUSE_MS = 20;
+
+    /** Paced online backup with the default step size and pause */
+    public CompletableFuture<Path> backup(Path target) {
+        return backup(target, BACKUP_ROWS_PER_STEP, BACKUP_PAUSE_MS);
+    }
+
+    /**
+     * Copy the live database to target while the application keeps running.
+     * Runs on its own thread and connection, copying rowsPerStep rows at a time
+     * with pauseMs between steps so foreground statements are not starved. No
+     * transaction is held between steps, so WAL checkpoints keep running; rows
+     * changed while the copy runs may or may not be included (use
+     * exportSnapshot for a point-in-time copy). target only appears once the
+     * copy is complete.
+     */
+    public CompletableFuture<Path> backup(Path target, int rowsPerStep, long pauseMs) {
+        String source = url;
+        if (source == null || isInMemory(source))
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Backup needs a file-backed database"));
+        if (rowsPerStep <= 0)
+            throw new IllegalArgumentException("rowsPerStep must be positive");
+
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        Thread worker = new Thread(() -> {
+            long started = System.currentTimeMillis();
+            try {
+                long rows = DatabaseBackup.backup(source, target, rowsPerStep, pauseMs);
+                System.out.println("[Database] Backup to " + target + " done: " + rows + " rows in "
+                        + (System.currentTimeMillis() - started) + " ms");
+                result.complete(target);
+            } catch (Exception e) {
+                System.err.println("[Database] Backup to " + target + " failed: " + e.getMessage());
+                result.completeExceptionally(new CompletionException(e));
+            }
+        }, "Database Backup");
+        worker.setDaemon(true);
+        worker.start();
+        return result;
+    }
+
+    /**
+     * Export a consistent, compacted copy of the database to target (VACUUM INTO
+     * on a separate connection). Readers of the exported file never touch the
+     * live database. Returns false on failure.
+     */
+    public boolean exportSnapshot(Path target) {
+        String source = url;
+        if (source == null || isInMemory(source)) {
+            System.err.println("[Database] Snapshot export needs a file-backed database");
+            return false;
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            DatabaseBackup.snapshot(source, target);
+            System.out.println("[Database] Snapshot exported to " + target + " in "
+                    + (System.currentTimeMillis() - started) + " ms");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Database] Snapshot export to " + target + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // =====================================================================
+    // QUERY TIMING / SLOW QUERY LOG
+    // =====================================================================
+
+    public QueryStats getQueryStats() {
+        return queryStats;
+    }
+
+    /** Size of the read-only connection pool (0 when there is none) */
+    public int getReaderCount() {
+        return readers == null ? 0 : readerCount;
+    }
+
+    public long getSlowQueryThresholdMs() {
+        return slowQueryThresholdMs;
+    }
+
+    /** Statements taking at least this long are logged; 0 logs everything, negative disables */
+    public void setSlowQueryThresholdMs(long thresholdMs) {
+        this.slowQueryThresholdMs = thresholdMs;
+    }
+
+    /** Print per-template counts, total time and p99, slowest first */
+    public void printQueryStats() {
+        List<QueryStats.Snapshot> stats = queryStats.snapshot();
+        System.out.println("[Database] Query stats (" + stats.size() + " statements):");
+        for (QueryStats.Snapshot s : stats)
+            System.out.println("  " + s);
+    }
+
+    // Caller holds the monitor, so EXPLAIN runs on the same connection state
+    private void recordTiming(String sql, Object[] params, long startNanos, boolean failed) {
+        recordTiming(connection, sql, params, startNanos, failed);
+    }
+
+    // Caller owns conn (the monitor for the shared connection, or a checked-out reader)
+    private void recordTiming(Connection conn, String sql, Object[] params, long startNanos, boolean failed) {
+        long elapsed = System.nanoTime() - startNanos;
+        queryStats.record(sql, elapsed, failed);
+
+        long threshold = slowQueryThresholdMs;
+        if (threshold < 0 || elapsed < threshold * 1_000_000L)
+            return;
+
+        System.err.printf("[Database] SLOW %.1f ms: %s%n    params=%s%n    plan=%s%n",
+                elapsed / 1_000_000.0, QueryStats.normalize(sql), describeParams(params), explain(conn, sql, params));
+    }
+
+    private String explain(Connection conn, String sql, Object[] params) {
+        if (conn == null)
+            return "<unavailable: no connection>";
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            fillParams(ps, params);
+            List<String> steps = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    steps.add(rs.getString("detail"));
+            }
+            return steps.toString();
+        } catch (SQLException e) {
+            return "<unavailable: " + e.getMessage() + ">";
+        }
+    }
+
+    private void logFailure(String op, String sql, Object[] params, Exception e) {
+        System.err.println("[Database] " + op + " failed: " + e.getMessage()
+                + "\n    sql=" + QueryStats.normalize(sql)
+                + "\n    params=" + describeParams(params));
+    }
+
+    /**
+     * Parameters for the logs: numbers and booleans as they are, anything else
+     * only as its type and length, so password hashes, emails and message
+     * text never reach stderr.
+     */
+    private static String describeParams(Object[] params) {
+        if (params == null)
+            return "[]";
+        List<String> shown = new ArrayList<>(params.length);
+        for (Object p : params) {
+            if (p == null || p instanceof Number || p instanceof Boolean)
+                shown.add(String.valueOf(p));
+            else if (p instanceof CharSequence s)
+                shown.add("String(" + s.length() + ")");
+            else if (p instanceof byte[] b)
+                shown.add("byte[" + b.length + "]");
+            else
+                shown.add(p.getClass().getSimpleName());
+        }
+        return shown.toString();
+    }
+
     // =====================================================================
     // UTILITIES
     // =====================================================================
 
+    /** In-memory databases exist only inside the connection that opened them */
+    private static boolean isInMemory(String url) {
+        return url.contains(":memory:") || url.contains("mode=memory");
+    }
+
     private void fillParams(PreparedStatement ps, Object... params) throws SQLException {
         for (int i = 0; i < params.length; i++) {
             ps.setObject(i + 1, params[i]);
@@ -227,13 +1048,24 @@ public class Database {
     }
 
     public synchronized void close() {
+        closed = true;
+        if (reconnector != null) {
+            reconnector.shutdownNow();
+            reconnector = null;
+        }
+        stopMaintenance();
+        closeReaders();
         try {
-            if (connection != null)
+            if (connection != null) {
+                optimize();
                 connection.close();
+                connection = null;
+            }
             System.out.println("[Database] Closed.");
         } catch (SQLException e) {
             System.err.println("[Database] Close failed: " + e.getMessage());
         }
+        setHealth(DatabaseHealth.DOWN);
     }
 
     /** Result Mapper Interface */
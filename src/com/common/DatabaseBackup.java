@@ -0,0 +1,244 @@
+package com.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Online copies of the live SQLite file, run on a dedicated connection so the
+ * shared connection and its lock are never involved.
+ *
+ * backup - copies table by table in rowid ranges of rowsPerStep rows, sleeping
+ * between steps. Each step is its own short transaction, so no read
+ * transaction stays open across the pauses to hold back WAL checkpoints. The
+ * price is that the copy is not one point in time: a row changed after its
+ * range was copied keeps its old value. Virtual tables are created, not
+ * copied (their shadow tables are skipped), and FTS5 indexes are rebuilt from
+ * their content tables at the end. Tables declared WITHOUT ROWID are copied
+ * in one statement. Rows are written to target + ".part" and renamed into
+ * place once complete.
+ *
+ * snapshot - VACUUM INTO: a single compact, consistent copy, also taken from a
+ * read transaction. Faster but not paced.
+ */
+final class DatabaseBackup {
+
+    private static final String SCHEMA_SQL = """
+            SELECT type, name, sql FROM main.sqlite_master
+            WHERE sql IS NOT NULL AND name NOT LIKE 'sqlite_%'
+            ORDER BY CASE type WHEN 'table' THEN 0 WHEN 'index' THEN 1 ELSE 2 END, rowid
+            """;
+
+    private record SchemaObject(String type, String name, String sql) {
+        boolean isVirtualTable() {
+            return "table".equals(type) && sql.toUpperCase().startsWith("CREATE VIRTUAL TABLE");
+        }
+
+        boolean isWithoutRowid() {
+            return "table".equals(type) && WITHOUT_ROWID.matcher(sql).find();
+        }
+
+        /** Full-text index (not fts5vocab), rebuilt in the copy instead of copied */
+        boolean isFts5() {
+            return isVirtualTable() && FTS5.matcher(sql).find();
+        }
+    }
+
+    private static final Pattern WITHOUT_ROWID = Pattern.compile("(?i)\\)\\s*WITHOUT\\s+ROWID\\s*$");
+    private static final Pattern FTS5 = Pattern.compile("(?i)\\bUSING\\s+fts5\\s*\\(");
+
+    private DatabaseBackup() {
+    }
+
+    /** Paced copy of every table into target; returns the number of rows copied */
+    static long backup(String url, Path target, int rowsPerStep, long pauseMs)
+            throws SQLException, IOException, InterruptedException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Files.deleteIfExists(part);
+
+        long copied = 0;
+        try (Connection conn = DriverManager.getConnection(url)) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA busy_timeout=5000;");
+            }
+            try (PreparedStatement ps = conn.prepareStatement("ATTACH DATABASE ? AS backup")) {
+                ps.setString(1, part.toString());
+                ps.execute();
+            }
+            try (Statement st = conn.createStatement()) {
+                // The .part file is discarded on failure, so it needs no journal
+                st.execute("PRAGMA backup.journal_mode=OFF;");
+                st.execute("PRAGMA backup.synchronous=OFF;");
+            }
+
+            // Autocommit: every statement below is its own transaction
+            List<SchemaObject> schema = readSchema(conn);
+            List<SchemaObject> tables = new ArrayList<>();
+            for (SchemaObject o : schema) {
+                if ("table".equals(o.type()) && !isShadowTable(o, schema)) {
+                    createIfMissing(conn, o);
+                    tables.add(o);
+                }
+            }
+
+            for (SchemaObject o : tables) {
+                if (o.isVirtualTable())
+                    continue;
+                copied += o.isWithoutRowid() ? copyWhole(conn, o.name())
+                        : copyTable(conn, o.name(), rowsPerStep, pauseMs);
+            }
+            copySequences(conn);
+            for (SchemaObject o : tables) {
+                if (o.isFts5())
+                    rebuildIndex(conn, o.name());
+            }
+
+            // Triggers last, so copying rows did not fire them
+            for (SchemaObject o : schema) {
+                if (!"table".equals(o.type()))
+                    createIfMissing(conn, o);
+            }
+
+            try (Statement st = conn.createStatement()) {
+                st.execute("DETACH DATABASE backup;");
+            }
+        } catch (SQLException | InterruptedException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return copied;
+    }
+
+    /** Consistent, compacted copy of the whole database in one statement */
+    static void snapshot(String url, Path target) throws SQLException, IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Files.deleteIfExists(part);
+
+        try (Connection conn = DriverManager.getConnection(url);
+                PreparedStatement ps = conn.prepareStatement("VACUUM INTO ?")) {
+            ps.setString(1, part.toString());
+            ps.execute();
+        } catch (SQLException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<SchemaObject> readSchema(Connection conn) throws SQLException {
+        List<SchemaObject> schema = new ArrayList<>();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(SCHEMA_SQL)) {
+            while (rs.next())
+                schema.add(new SchemaObject(rs.getString(1), rs.getString(2), rs.getString(3)));
+        }
+        return schema;
+    }
+
+    /** A table a virtual table keeps its data in (e.g. items_fts_data); creating the virtual table makes it */
+    private static boolean isShadowTable(SchemaObject o, List<SchemaObject> schema) {
+        if (o.isVirtualTable())
+            return false;
+        for (SchemaObject v : schema) {
+            if (v.isVirtualTable() && o.name().startsWith(v.name() + "_"))
+                return true;
+        }
+        return false;
+    }
+
+    /** Run the original CREATE statement against the backup schema, unless a virtual table already made it */
+    private static void createIfMissing(Connection conn, SchemaObject o) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT 1 FROM backup.sqlite_master WHERE name = ?")) {
+            ps.setString(1, o.name());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next())
+                    return;
+            }
+        }
+
+        // "CREATE TABLE x" -> "CREATE TABLE backup.x"; sqlite_master keeps the statement as written
+        String sql = o.sql().replaceFirst("(?i)^(CREATE\\s+(?:UNIQUE\\s+|VIRTUAL\\s+)?\\w+\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?)",
+                "$1backup.");
+        try (Statement st = conn.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static long copyTable(Connection conn, String table, int rowsPerStep, long pauseMs)
+            throws SQLException, InterruptedException {
+        String quoted = "\"" + table.replace("\"", "\"\"") + "\"";
+        String boundarySql = "SELECT rowid FROM main." + quoted + " WHERE rowid > ? ORDER BY rowid LIMIT 1 OFFSET ?";
+        String copySql = "INSERT INTO backup." + quoted + " SELECT * FROM main." + quoted
+                + " WHERE rowid > ? AND rowid <= ?";
+
+        long copied = 0;
+        long from = Long.MIN_VALUE;
+
+        try (PreparedStatement boundary = conn.prepareStatement(boundarySql);
+                PreparedStatement copy = conn.prepareStatement(copySql)) {
+            while (true) {
+                boundary.setLong(1, from);
+                boundary.setInt(2, rowsPerStep - 1);
+                long to;
+                try (ResultSet rs = boundary.executeQuery()) {
+                    to = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                }
+
+                copy.setLong(1, from);
+                copy.setLong(2, to);
+                copied += copy.executeUpdate();
+
+                if (to == Long.MAX_VALUE)
+                    break;
+                from = to;
+                if (pauseMs > 0)
+                    Thread.sleep(pauseMs);
+            }
+        }
+
+        return copied;
+    }
+
+    /** WITHOUT ROWID tables have no rowid to page by; they are copied in one statement */
+    private static long copyWhole(Connection conn, String table) throws SQLException {
+        String quoted = "\"" + table.replace("\"", "\"\"") + "\"";
+        try (Statement st = conn.createStatement()) {
+            return st.executeUpdate("INSERT INTO backup." + quoted + " SELECT * FROM main." + quoted);
+        }
+    }
+
+    /** Re-index an external-content FTS5 table from its (already copied) content table */
+    private static void rebuildIndex(Connection conn, String table) throws SQLException {
+        String quoted = "\"" + table.replace("\"", "\"\"") + "\"";
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO backup." + quoted + "(" + quoted + ") VALUES ('rebuild')");
+        }
+    }
+
+    /** AUTOINCREMENT counters, so ids keep increasing after a restore */
+    private static void copySequences(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery(
+                        "SELECT 1 FROM backup.sqlite_master WHERE name = 'sqlite_sequence'")) {
+            if (!rs.next())
+                return;
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("DELETE FROM backup.sqlite_sequence;");
+            st.execute("INSERT INTO backup.sqlite_sequence SELECT * FROM main.sqlite_sequence;");
+        }
+    }
+}
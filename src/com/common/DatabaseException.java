@@ -0,0 +1,18 @@
+package com.common;
+
+/**
+ * Unchecked failure of a Database transaction. Thrown out of inTransaction
+ * (and by Tx statements) so the enclosing transaction or savepoint rolls back.
+ */
+public class DatabaseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DatabaseException(String message) {
+        super(message);
+    }
+
+    public DatabaseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
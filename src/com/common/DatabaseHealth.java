@@ -0,0 +1,15 @@
+package com.common;
+
+/**
+ * Connection health reported by Database whenever it changes.
+ *
+ * UP - connected; the last statement succeeded.
+ * DEGRADED - connected, but a statement failed after exhausting its retries
+ * on SQLITE_BUSY / SQLITE_LOCKED. Returns to UP on the next success.
+ * DOWN - no usable connection; reconnect attempts run in the background.
+ */
+public enum DatabaseHealth {
+    UP,
+    DEGRADED,
+    DOWN
+}
@@ -0,0 +1,88 @@
+package com.common;
+
+/**
+ * Named SQLite tuning profiles applied by Database.connect.
+ *
+ * DURABLE - fsync on every commit (synchronous=FULL); survives power loss.
+ * THROUGHPUT - synchronous=NORMAL in WAL mode (a power cut may drop the last
+ * commits but never corrupts), larger cache and mmap, temp tables in memory.
+ *
+ * Selected at startup with -Dmall.db.profile=durable|throughput.
+ */
+public enum DatabaseProfile {
+
+    DURABLE("FULL", -16_000, 0L, "DEFAULT", 5_000, 1_000, 60, 6 * 60),
+
+    THROUGHPUT("NORMAL", -131_072, 268_435_456L, "MEMORY", 10_000, 10_000, 15, 60);
+
+    /** PRAGMA synchronous value */
+    final String synchronous;
+    /** PRAGMA cache_size; negative values are KiB */
+    final int cacheSize;
+    /** PRAGMA mmap_size in bytes; 0 disables memory mapping */
+    final long mmapSize;
+    /** PRAGMA temp_store value */
+    final String tempStore;
+    /** PRAGMA busy_timeout in milliseconds */
+    final int busyTimeoutMs;
+    /** PRAGMA wal_autocheckpoint in pages */
+    final int walAutoCheckpointPages;
+    /** Period of the background passive WAL checkpoint */
+    final int checkpointIntervalSeconds;
+    /** Period of the background PRAGMA optimize run */
+    final int optimizeIntervalMinutes;
+
+    DatabaseProfile(String synchronous, int cacheSize, long mmapSize, String tempStore, int busyTimeoutMs,
+            int walAutoCheckpointPages, int checkpointIntervalSeconds, int optimizeIntervalMinutes) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMs = busyTimeoutMs;
+        this.walAutoCheckpointPages = walAutoCheckpointPages;
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+        this.optimizeIntervalMinutes = optimizeIntervalMinutes;
+    }
+
+    /** PRAGMA statements for this profile, in the order they must run */
+    String[] pragmas() {
+        return new String[] {
+                "PRAGMA journal_mode=WAL;",
+                "PRAGMA foreign_keys=ON;",
+                "PRAGMA synchronous=" + synchronous + ";",
+                "PRAGMA cache_size=" + cacheSize + ";",
+                "PRAGMA mmap_size=" + mmapSize + ";",
+                "PRAGMA temp_store=" + tempStore + ";",
+                "PRAGMA busy_timeout=" + busyTimeoutMs + ";",
+                "PRAGMA wal_autocheckpoint=" + walAutoCheckpointPages + ";"
+        };
+    }
+
+    /** PRAGMA statements for the read-only connections; WAL and durability are per database, not repeated */
+    String[] readerPragmas() {
+        return new String[] {
+                "PRAGMA query_only=ON;",
+                "PRAGMA cache_size=" + cacheSize + ";",
+                "PRAGMA mmap_size=" + mmapSize + ";",
+                "PRAGMA temp_store=" + tempStore + ";",
+                "PRAGMA busy_timeout=" + busyTimeoutMs + ";"
+        };
+    }
+
+    /** Parse a profile name, falling back to DURABLE for null or unknown names */
+    public static DatabaseProfile fromName(String name) {
+        if (name == null || name.isBlank())
+            return DURABLE;
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Database] Unknown profile '" + name + "', using DURABLE");
+            return DURABLE;
+        }
+    }
+
+    /** Profile named by the mall.db.profile system property */
+    public static DatabaseProfile fromSystemProperty() {
+        return fromName(System.getProperty("mall.db.profile"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-SQL-template timing collected by Database.
+ *
+ * The key is the SQL text with whitespace collapsed and every "IN (?, ?, ...)"
+ * list reduced to "IN (?...)", so lookups by a varying number of ids share one
+ * template. For each template we keep the call count, failure count, total and
+ * max time, and a ring buffer of the most recent samples from which p99 is
+ * computed on demand. At most MAX_TEMPLATES templates are tracked; statements
+ * first seen after that are counted together under OTHER.
+ */
+public class QueryStats {
+
+    /** Recent samples kept per template for percentile estimates */
+    private static final int SAMPLE_WINDOW = 1024;
+    private static final int MAX_TEMPLATES = 512;
+    static final String OTHER = "(other statements)";
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private final ConcurrentHashMap<String, TemplateStats> templates = new ConcurrentHashMap<>();
+
+    // Template of each SQL string seen, so the regexes run once per string rather than per call
+    private static final int MAX_CACHED_SQL = 4096;
+    private final ConcurrentHashMap<String, String> templateCache = new ConcurrentHashMap<>();
+
+    /** Record one execution of a statement */
+    public void record(String sql, long elapsedNanos, boolean failed) {
+        String key = templateCache.get(sql);
+        if (key == null) {
+            key = template(sql);
+            // Varying IN lists make distinct strings; past the bound they are templated each call
+            if (templateCache.size() < MAX_CACHED_SQL)
+                templateCache.put(sql, key);
+        }
+        TemplateStats stats = templates.get(key);
+        if (stats == null) {
+            if (templates.size() >= MAX_TEMPLATES)
+                key = OTHER;
+            stats = templates.computeIfAbsent(key, TemplateStats::new);
+        }
+        stats.record(elapsedNanos, failed);
+    }
+
+    /** Snapshot of every template, slowest total time first */
+    public List<Snapshot> snapshot() {
+        List<Snapshot> list = new ArrayList<>();
+        for (TemplateStats t : templates.values())
+            list.add(t.snapshot());
+        list.sort(Comparator.comparingDouble(Snapshot::totalMillis).reversed());
+        return list;
+    }
+
+    public void reset() {
+        templates.clear();
+    }
+
+    static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    /** normalize(), with IN lists of any length collapsed to one placeholder */
+    static String template(String sql) {
+        String text = normalize(sql);
+        return IN_LIST.matcher(text).replaceAll("IN (?...)");
+    }
+
+    /** Mutable counters for one template */
+    private static final class TemplateStats {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int next = 0;
+        private int filled = 0;
+        private long maxNanos = 0;
+
+        TemplateStats(String template) {
+            this.sql = template;
+        }
+
+        void record(long elapsedNanos, boolean failed) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            if (failed)
+                failures.increment();
+
+            synchronized (this) {
+                samples[next] = elapsedNanos;
+                next = (next + 1) % SAMPLE_WINDOW;
+                if (filled < SAMPLE_WINDOW)
+                    filled++;
+                if (elapsedNanos > maxNanos)
+                    maxNanos = elapsedNanos;
+            }
+        }
+
+        Snapshot snapshot() {
+            long[] copy;
+            long max;
+            synchronized (this) {
+                copy = Arrays.copyOf(samples, filled);
+                max = maxNanos;
+            }
+
+            long p99 = 0;
+            if (copy.length > 0) {
+                Arrays.sort(copy);
+                int idx = (int) Math.ceil(copy.length * 0.99) - 1;
+                p99 = copy[Math.max(0, idx)];
+            }
+
+            return new Snapshot(sql, count.sum(), failures.sum(),
+                    totalNanos.sum() / 1_000_000.0, p99 / 1_000_000.0, max / 1_000_000.0);
+        }
+    }
+
+    /** Immutable view of one template's numbers (times in milliseconds) */
+    public record Snapshot(String sql, long count, long failures, double totalMillis, double p99Millis,
+            double maxMillis) {
+
+        public double meanMillis() {
+            return count == 0 ? 0.0 : totalMillis / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%8d calls %6d failed  total %10.1f ms  mean %7.2f ms  p99 %7.2f ms  max %7.2f ms  %s",
+                    count, failures, totalMillis, meanMillis(), p99Millis, maxMillis, sql);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.common;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Versioned schema migrations.
+ *
+ * Each step has a version number and a list of statements. The highest applied
+ * version is stored in the schema_version table; on startup only steps with a
+ * higher version are run, each in its own transaction. When the database is
+ * already up to date the only cost is reading schema_version.
+ *
+ * Step 1 is the original schema.sql. New schema changes must be appended as a
+ * new step, never edited into an existing one.
+ */
+class SchemaMigrator {
+
+    private static final String SCHEMA_RESOURCE = "/com/resources/schema.sql";
+
+    /** One migration step */
+    static final class Step {
+        final int version;
+        final String description;
+        /** Resolved only when the step actually has to run */
+        final Supplier<List<String>> statements;
+
+        Step(int version, String description, Supplier<List<String>> statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+
+    SchemaMigrator() {
+        steps.add(new Step(1, "base schema", () -> loadScript(SCHEMA_RESOURCE)));
+
+        steps.add(new Step(2, "secondary and covering indexes", () -> List.of(
+                // Order history: WHERE customer_id = ? ORDER BY order_date DESC
+                "CREATE INDEX IF NOT EXISTS idx_orders_customer_date ON orders(customer_id, order_date)",
+                // Sales reporting: range on order_date, covering status and total_amount
+                "CREATE INDEX IF NOT EXISTS idx_orders_date_status_total ON orders(order_date, status, total_amount)",
+                // Line items per order
+                "CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items(order_id)",
+                // Conversation lookup by customer and subject
+                "CREATE INDEX IF NOT EXISTS idx_conversations_customer_subject ON conversations(customer_id, subject)",
+                // Messages of a conversation in time order (also serves the last-message subquery)
+                "CREATE INDEX IF NOT EXISTS idx_messages_conversation_created ON messages(conversation_id, created_at)",
+                // Messages sent by a user
+                "CREATE INDEX IF NOT EXISTS idx_messages_user ON messages(user_id, created_at)",
+                // Wishlist view: WHERE customer_id = ? ORDER BY added_at DESC
+                "CREATE INDEX IF NOT EXISTS idx_wishlist_customer_added ON wishlist(customer_id, added_at)",
+                // Saved cards: WHERE user_id = ? ORDER BY created_at DESC
+                "CREATE INDEX IF NOT EXISTS idx_payment_methods_user_created ON payment_methods(user_id, created_at)",
+                // Likes per item (the UNIQUE constraint only covers customer_id first)
+                "CREATE INDEX IF NOT EXISTS idx_liked_item_item ON liked_item(item_id)",
+                // Reports by type, newest first
+                "CREATE INDEX IF NOT EXISTS idx_reports_type_created ON reports(type, created_date)")));
+
+        steps.add(new Step(3, "full-text search over items", () -> List.of(
+                // External-content FTS5 table: stores only the index, rows stay in items.
+                // prefix='2 3' keeps short prefix queries off a full term scan
+                """
+                CREATE VIRTUAL TABLE IF NOT EXISTS items_fts USING fts5(
+                    name, description,
+                    content='items', content_rowid='id',
+                    tokenize='unicode61 remove_diacritics 2', prefix='2 3')
+                """,
+                // Triggers keep the index in step with every insert, update and delete
+                """
+                CREATE TRIGGER IF NOT EXISTS items_fts_insert AFTER INSERT ON items BEGIN
+                    INSERT INTO items_fts(rowid, name, description) VALUES (new.id, new.name, new.description);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS items_fts_delete AFTER DELETE ON items BEGIN
+                    INSERT INTO items_fts(items_fts, rowid, name, description)
+                    VALUES ('delete', old.id, old.name, old.description);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS items_fts_update AFTER UPDATE OF name, description ON items BEGIN
+                    INSERT INTO items_fts(items_fts, rowid, name, description)
+                    VALUES ('delete', old.id, old.name, old.description);
+                    INSERT INTO items_fts(rowid, name, description) VALUES (new.id, new.name, new.description);
+                END
+                """,
+                // Index the rows that already exist
+                "INSERT INTO items_fts(items_fts) VALUES ('rebuild')")));
+
+        steps.add(new Step(4, "catalog pagination indexes", () -> List.of(
+                // Keyset browse by popularity: ORDER BY like_count DESC, id DESC
+                "CREATE INDEX IF NOT EXISTS idx_items_likes ON items(like_count, id)",
+                // Keyset browse by price, either direction
+                "CREATE INDEX IF NOT EXISTS idx_items_price ON items(price, id)")));
+
+        steps.add(new Step(5, "category browse indexes", () -> List.of(
+                // Keyset browse within a category, by popularity and by price
+                "CREATE INDEX IF NOT EXISTS idx_items_category_likes ON items(category, like_count, id)",
+                "CREATE INDEX IF NOT EXISTS idx_items_category_price ON items(category, price, id)")));
+
+        steps.add(new Step(6, "search vocabulary", () -> List.of(
+                // Read-only view of the terms in items_fts with their item counts (no storage of its own)
+                "CREATE VIRTUAL TABLE IF NOT EXISTS items_fts_vocab USING fts5vocab(items_fts, 'row')")));
+
+        steps.add(new Step(7, "stock level index", () -> List.of(
+                // Low-stock view: WHERE stock_quantity <= ? ORDER BY stock_quantity, id
+                "CREATE INDEX IF NOT EXISTS idx_items_stock ON items(stock_quantity, id)")));
+    }
+
+    /** Highest version known to this build */
+    int latestVersion() {
+        return steps.get(steps.size() - 1).version;
+    }
+
+    /**
+     * Apply every step newer than the stored version.
+     * Returns the number of steps applied.
+     */
+    int migrate(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description TEXT,
+                        applied_at INTEGER NOT NULL DEFAULT (strftime('%s','now'))
+                    )
+                    """);
+        }
+
+        int current = currentVersion(connection);
+        if (current >= latestVersion())
+            return 0;
+
+        int applied = 0;
+        for (Step step : steps) {
+            if (step.version <= current)
+                continue;
+
+            apply(connection, step);
+            applied++;
+        }
+        return applied;
+    }
+
+    int currentVersion(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Connection connection, Step step) throws SQLException {
+        List<String> statements = step.statements.get();
+        if (statements.isEmpty())
+            throw new SQLException("Schema v" + step.version + " has no statements");
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement st = connection.createStatement()) {
+            for (String sql : statements)
+                st.execute(sql);
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO schema_version(version, description) VALUES (?, ?)")) {
+                ps.setInt(1, step.version);
+                ps.setString(2, step.description);
+                ps.executeUpdate();
+            }
+
+            connection.commit();
+            System.out.println("[Database] Applied schema v" + step.version + " (" + step.description + ")");
+
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Schema v" + step.version + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /** Load a ';'-separated script from resources. Comment lines are dropped. */
+    private static List<String> loadScript(String resource) {
+        List<String> statements = new ArrayList<>();
+
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                System.err.println("[Database] " + resource + " not found.");
+                return statements;
+            }
+
+            BufferedReader br = new BufferedReader(new InputStreamReader(in));
+            StringBuilder sb = new StringBuilder();
+            String line;
+
+            while ((line = br.readLine()) != null) {
+                if (line.trim().startsWith("--"))
+                    continue;
+                sb.append(line).append("\n");
+            }
+
+            for (String raw : sb.toString().split(";")) {
+                String sql = raw.trim();
+                // PRAGMAs cannot run inside the migration transaction; connect() sets them
+                if (!sql.isEmpty() && !sql.toUpperCase().startsWith("PRAGMA"))
+                    statements.add(sql);
+            }
+
+        } catch (Exception e) {
+            System.err.println("[Database] Failed loading " + resource + ": " + e.getMessage());
+        }
+
+        return statements;
+    }
+}
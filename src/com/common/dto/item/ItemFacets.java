@@ -0,0 +1,64 @@
+package com.common.dto.item;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Item counts per category and per price bucket, shown next to browse and
+ * search results. Categories are ordered by count (largest first), buckets by
+ * price. When a category is selected the price buckets count only that
+ * category.
+ */
+public class ItemFacets {
+
+    /** Lower bound of each price bucket; the last bucket is open-ended */
+    public static final double[] PRICE_BUCKET_BOUNDS = { 0, 10, 25, 50, 100, 250 };
+
+    private final Map<String, Integer> categoryCounts;
+    private final Map<String, Integer> priceBucketCounts;
+
+    public ItemFacets(Map<String, Integer> categoryCounts, Map<String, Integer> priceBucketCounts) {
+        this.categoryCounts = categoryCounts;
+        this.priceBucketCounts = priceBucketCounts;
+    }
+
+    /** Index into PRICE_BUCKET_BOUNDS of the bucket holding price */
+    public static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_BUCKET_BOUNDS.length && price >= PRICE_BUCKET_BOUNDS[bucket + 1])
+            bucket++;
+        return bucket;
+    }
+
+    /** "$10-25", or "$250+" for the last bucket */
+    public static String priceBucketLabel(int bucket) {
+        String low = String.format("$%.0f", PRICE_BUCKET_BOUNDS[bucket]);
+        if (bucket + 1 == PRICE_BUCKET_BOUNDS.length)
+            return low + "+";
+        return low + String.format("-%.0f", PRICE_BUCKET_BOUNDS[bucket + 1]);
+    }
+
+    /** Bucket counts in bucket order, labelled */
+    public static Map<String, Integer> labelBuckets(long[] counts) {
+        Map<String, Integer> labelled = new LinkedHashMap<>();
+        for (int b = 0; b < counts.length; b++)
+            labelled.put(priceBucketLabel(b), (int) counts[b]);
+        return labelled;
+    }
+
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public Map<String, Integer> getPriceBucketCounts() {
+        return priceBucketCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemFacets{" +
+                "categoryCounts=" + categoryCounts +
+                ", priceBucketCounts=" + priceBucketCounts +
+                '}';
+    }
+}
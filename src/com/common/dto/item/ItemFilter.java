@@ -0,0 +1,55 @@
+package com.common.dto.item;
+
+/**
+ * Restricts which items a browse or search returns. A null field means "any";
+ * the price bounds are inclusive.
+ */
+public class ItemFilter {
+
+    private final String category;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final boolean inStockOnly;
+
+    public ItemFilter(String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        this.category = category == null || category.isBlank() ? null : category.trim();
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStockOnly = inStockOnly;
+    }
+
+    public ItemFilter(String category) {
+        this(category, null, null, false);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
+    /** True when nothing is filtered */
+    public boolean isEmpty() {
+        return category == null && minPrice == null && maxPrice == null && !inStockOnly;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemFilter{" +
+                "category='" + category + '\'' +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", inStockOnly=" + inStockOnly +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.common.dto.item;
+
+import com.entities.Item;
+
+import java.util.List;
+
+/**
+ * A page of items returned on ITEM_PAGE_RETURNED.
+ * nextCursor is null when this is the last page. facets holds the category and
+ * price-bucket counts for the catalog (null if not requested).
+ */
+public class ItemPage {
+
+    private final List<Item> items;
+    private final ItemSort sort;
+    private final String nextCursor;
+    private final ItemFacets facets;
+
+    public ItemPage(List<Item> items, ItemSort sort, String nextCursor, ItemFacets facets) {
+        this.items = items;
+        this.sort = sort;
+        this.nextCursor = nextCursor;
+        this.facets = facets;
+    }
+
+    public ItemPage(List<Item> items, ItemSort sort, String nextCursor) {
+        this(items, sort, nextCursor, null);
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public ItemSort getSort() {
+        return sort;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public ItemFacets getFacets() {
+        return facets;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPage{" +
+                "items=" + items.size() +
+                ", sort=" + sort +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", facets=" + facets +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.common.dto.item;
+
+/**
+ * One page of the catalog for ITEM_BROWSE_REQUESTED.
+ * cursor is null for the first page, otherwise the nextCursor of the previous
+ * ItemPage (opaque to callers). filter, if set, limits the pages to matching
+ * items. The answer is an ItemPage on ITEM_PAGE_RETURNED.
+ */
+public class ItemPageRequest {
+
+    private final ItemSort sort;
+    private final int pageSize;
+    private final String cursor;
+    private final ItemFilter filter;
+
+    public ItemPageRequest(ItemSort sort, int pageSize, String cursor, ItemFilter filter) {
+        this.sort = sort;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+        this.filter = filter;
+    }
+
+    public ItemPageRequest(ItemSort sort, int pageSize, String cursor) {
+        this(sort, pageSize, cursor, null);
+    }
+
+    public ItemPageRequest(ItemSort sort, int pageSize) {
+        this(sort, pageSize, null);
+    }
+
+    public ItemSort getSort() {
+        return sort;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public ItemFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPageRequest{" +
+                "sort=" + sort +
+                ", pageSize=" + pageSize +
+                ", cursor='" + cursor + '\'' +
+                ", filter=" + filter +
+                '}';
+    }
+}
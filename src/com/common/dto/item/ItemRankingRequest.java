@@ -3,8 +3,8 @@ package com.common.dto.item;
 /**
  * DTO used when the system or user requests ranked items.
  * RankingManager will:
- * - compute ranking based on likes
- * - publish ITEM_RANKING_RETURNED or ITEM_LIST_RETURNED
+ * - read the live like ranking (no database query)
+ * - publish ITEM_RANKING_RETURNED with at most limit entries
  */
 
 public class ItemRankingRequest {
@@ -0,0 +1,38 @@
+package com.common.dto.item;
+
+/**
+ * DTO for ITEM_RECOMMENDATIONS_REQUESTED: items that customers interested in
+ * itemId were also interested in. Answered from memory on
+ * ITEM_RECOMMENDATIONS_RETURNED with at most limit Items, best first.
+ */
+
+public class ItemRecommendationRequest {
+
+    private final int itemId;
+    private final int limit;
+
+    public ItemRecommendationRequest(int itemId, int limit) {
+        this.itemId = itemId;
+        this.limit = limit;
+    }
+
+    public ItemRecommendationRequest(int itemId) {
+        this(itemId, 0);
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemRecommendationRequest{" +
+                "itemId=" + itemId +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -7,19 +7,31 @@ public class ItemSearchRequest {
     private final Double minPrice; 
     private final Double maxPrice; 
     private final String sortOrder; 
+    private final boolean inStockOnly;
 
     public ItemSearchRequest(
             String keyword,
             String category,
             Double minPrice,
             Double maxPrice,
-            String sortOrder) {
+            String sortOrder,
+            boolean inStockOnly) {
 
         this.keyword = keyword;
         this.category = category;
         this.minPrice = minPrice;
         this.maxPrice = maxPrice;
         this.sortOrder = sortOrder;
+        this.inStockOnly = inStockOnly;
+    }
+
+    public ItemSearchRequest(
+            String keyword,
+            String category,
+            Double minPrice,
+            Double maxPrice,
+            String sortOrder) {
+        this(keyword, category, minPrice, maxPrice, sortOrder, false);
     }
 
     public ItemSearchRequest(String keyword) {
@@ -42,10 +54,15 @@ public class ItemSearchRequest {
         return maxPrice;
     }
 
+    /** An ItemSort name (e.g. "PRICE_LOW"); null keeps best-match order */
     public String getSortOrder() {
         return sortOrder;
     }
 
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
     @Override
     public String toString() {
         return "ItemSearchRequest{" +
@@ -54,6 +71,7 @@ public class ItemSearchRequest {
                 ", minPrice=" + minPrice +
                 ", maxPrice=" + maxPrice +
                 ", sortOrder='" + sortOrder + '\'' +
+                ", inStockOnly=" + inStockOnly +
                 '}';
     }
 }
\ No newline at end of file
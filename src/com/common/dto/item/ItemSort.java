@@ -0,0 +1,16 @@
+package com.common.dto.item;
+
+/**
+ * Orders a paginated catalog can be browsed in. Every order ends with id as a
+ * tie-breaker, so (sort value, id) identifies a position in the catalog.
+ */
+public enum ItemSort {
+    /** like_count DESC, id DESC */
+    POPULAR,
+    /** id DESC */
+    NEWEST,
+    /** price ASC, id ASC */
+    PRICE_LOW,
+    /** price DESC, id DESC */
+    PRICE_HIGH
+}
@@ -0,0 +1,38 @@
+package com.common.dto.item;
+
+/**
+ * DTO for ITEM_SUGGEST_REQUESTED: completions of a partly typed item name.
+ * SuggestManager answers from memory on ITEM_SUGGESTIONS_RETURNED with at most
+ * limit ItemRanking entries, most liked first.
+ */
+
+public class ItemSuggestRequest {
+
+    private final String prefix;
+    private final int limit;
+
+    public ItemSuggestRequest(String prefix, int limit) {
+        this.prefix = prefix;
+        this.limit = limit;
+    }
+
+    public ItemSuggestRequest(String prefix) {
+        this(prefix, 0);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemSuggestRequest{" +
+                "prefix='" + prefix + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+}
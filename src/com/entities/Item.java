@@ -13,6 +13,7 @@ public class Item {
     private int id;
     private String name;
     private String description;
+    private String category;
     private double price;
     private int stockQuantity;
     private int likeCount;
@@ -22,9 +23,15 @@ public class Item {
     };
 
     public Item(int id, String name, String description, double price, int stockQuantity, int likeCount) {
+        this(id, name, description, null, price, stockQuantity, likeCount);
+    }
+
+    public Item(int id, String name, String description, String category, double price, int stockQuantity,
+            int likeCount) {
         this.id = id;
         this.name = name;
         this.description = description;
+        this.category = category;
         this.price = price;
         this.stockQuantity = stockQuantity;
         this.likeCount = likeCount;
@@ -54,6 +61,14 @@ public class Item {
         this.description = description;
     }
 
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
     public double getPrice() {
         return price;
     }
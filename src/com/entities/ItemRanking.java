@@ -10,12 +10,19 @@ public class ItemRanking {
     private String itemName;
     private int likeCount;
     private int rank;
+    // Ranking-specific weight (e.g. the decayed trending score); 0 when ranked by likes
+    private double score;
 
     public ItemRanking(int itemId, String itemName, int likeCount, int rank) {
+        this(itemId, itemName, likeCount, rank, 0);
+    }
+
+    public ItemRanking(int itemId, String itemName, int likeCount, int rank, double score) {
         this.itemId = itemId;
         this.itemName = itemName;
         this.likeCount = likeCount;
         this.rank = rank;
+        this.score = score;
     }
 
     public int getItemId() {
@@ -34,6 +41,10 @@ public class ItemRanking {
         return rank;
     }
 
+    public double getScore() {
+        return score;
+    }
+
     @Override
     public String toString() {
         return "ItemRanking{" +
@@ -41,6 +52,7 @@ public class ItemRanking {
                 ", itemName='" + itemName + '\'' +
                 ", likeCount=" + likeCount +
                 ", rank=" + rank +
+                ", score=" + score +
                 '}';
     }
 }
\ No newline at end of file
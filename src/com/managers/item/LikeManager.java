@@ -13,20 +13,14 @@ public class LikeManager {
 
     public boolean likeItem(int userId, int itemId) throws Exception {
 
-        // Check duplicate like
-        if (repo.existsLike(userId, itemId))
-            throw new Exception("You already liked this item");
-
         // Check item exists
         Item item = repo.findById(itemId);
         if (item == null)
             throw new Exception("Item not found");
 
-        // Insert like record
-        repo.insertLike(userId, itemId);
-
-        // Update like_count column
-        repo.incrementLikeCount(itemId);
+        // Insert like record and count it; false means a duplicate like
+        if (!repo.insertLike(userId, itemId))
+            throw new Exception("You already liked this item");
 
         return true;
     }
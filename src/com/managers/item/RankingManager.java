@@ -1,13 +1,19 @@
 package com.managers.item;
 
+import com.entities.Item;
 import com.entities.ItemRanking;
 import com.repository.ItemRankingRepository;
 import com.repository.ItemRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Computes top ranked items (based on likes or sales).
+ *
+ * The ranking repository is a live leaderboard: it is loaded from the item
+ * table once by rebuild() and then kept current by the item events below, so
+ * reading the ranking never queries the database.
  */
 
 public class RankingManager {
@@ -20,14 +26,37 @@ public class RankingManager {
         this.itemRepo = itemRepo;
     }
 
+    /** Load every item's like count (startup) */
+    public void rebuild() {
+        List<ItemRanking> all = new ArrayList<>();
+        itemRepo.forEach(item -> all.add(new ItemRanking(item.getId(), item.getName(), item.getLikeCount(), 0)));
+        rankingRepo.replaceAll(all);
+        System.out.println("[RankingManager] Ranking loaded for " + all.size() + " items");
+    }
+
+    /** Current top items by likes */
     public List<ItemRanking> updateRanking() {
+        return rankingRepo.findAll();
+    }
 
-        // Compute top items (example: by like count)
-        List<ItemRanking> ranking = itemRepo.computeRanking();
+    public List<ItemRanking> top(int k) {
+        return rankingRepo.top(k);
+    }
 
-        // Save ranking
-        rankingRepo.replaceAll(ranking);
+    public void onItemSaved(Item item) {
+        rankingRepo.put(item.getId(), item.getName(), item.getLikeCount());
+    }
+
+    /** An edit changes only the details; the like count here is live, the edited item's may be stale */
+    public void onItemEdited(Item item) {
+        rankingRepo.rename(item.getId(), item.getName(), item.getLikeCount());
+    }
+
+    public void onItemLiked(int itemId) {
+        rankingRepo.addLikes(itemId, 1);
+    }
 
-        return ranking;
+    public void onItemRemoved(int itemId) {
+        rankingRepo.remove(itemId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.managers.item;
+
+import com.entities.Item;
+import com.repository.InteractionRepository;
+import com.repository.ItemCoOccurrenceIndex;
+import com.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * "Customers who liked this also liked" recommendations.
+ *
+ * The co-occurrence index is built from every like, wishlist entry and order
+ * line by rebuild(), in the background at startup, and then kept current by
+ * the interaction events below. A recommendation never queries the
+ * interaction tables; only the recommended items are loaded, by id.
+ */
+
+public class RecommendationManager {
+
+    private final ItemCoOccurrenceIndex index;
+    private final InteractionRepository interactions;
+    private final ItemRepository itemRepo;
+
+    public RecommendationManager(ItemCoOccurrenceIndex index, InteractionRepository interactions,
+            ItemRepository itemRepo) {
+        this.index = index;
+        this.interactions = interactions;
+        this.itemRepo = itemRepo;
+    }
+
+    /** Recompute the index from every interaction on the common fork/join pool */
+    public void rebuild() {
+        long start = System.nanoTime();
+        int pairs = index.rebuild(interactions, ForkJoinPool.commonPool());
+        if (pairs < 0) {
+            System.err.println("[RecommendationManager] Rebuild failed; keeping the current recommendations");
+            return;
+        }
+        System.out.printf("[RecommendationManager] Recommendations built from %d interactions for %d items in %d ms%n",
+                pairs, index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public CompletableFuture<Void> rebuildAsync() {
+        return CompletableFuture.runAsync(this::rebuild);
+    }
+
+    /** Up to limit items most often chosen together with itemId, best first; items gone since are skipped */
+    public List<Item> alsoLiked(int itemId, int limit) {
+        int[] ids = index.neighbours(itemId, limit);
+        List<Integer> order = new ArrayList<>(ids.length);
+        for (int id : ids)
+            order.add(id);
+        Map<Integer, Item> found = itemRepo.findByIds(order);
+
+        List<Item> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Item item = found.get(id);
+            if (item != null)
+                result.add(item);
+        }
+        return result;
+    }
+
+    public void onInteraction(int customerId, int itemId) {
+        index.add(customerId, itemId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.managers.item;
+
+import com.entities.Item;
+import com.entities.ItemRanking;
+import com.repository.ItemRepository;
+import com.repository.ItemSuggestIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type-ahead suggestions for item names.
+ *
+ * Like the ranking, the suggestion index is loaded from the item table once by
+ * rebuild() and then kept current by the item events below, so a suggestion
+ * never queries the database.
+ */
+
+public class SuggestManager {
+
+    private final ItemSuggestIndex index;
+    private final ItemRepository itemRepo;
+
+    public SuggestManager(ItemSuggestIndex index, ItemRepository itemRepo) {
+        this.index = index;
+        this.itemRepo = itemRepo;
+    }
+
+    /** Load every item's name and like count (startup) */
+    public void rebuild() {
+        List<ItemRanking> all = new ArrayList<>();
+        itemRepo.forEach(item -> all.add(new ItemRanking(item.getId(), item.getName(), item.getLikeCount(), 0)));
+        index.replaceAll(all);
+        System.out.println("[SuggestManager] Suggestions loaded for " + all.size() + " items");
+    }
+
+    /** Most liked items whose name has a word sequence starting with prefix */
+    public List<ItemRanking> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
+    }
+
+    public void onItemSaved(Item item) {
+        index.put(item.getId(), item.getName(), item.getLikeCount());
+    }
+
+    /** An edit changes only the details; the like count here is live, the edited item's may be stale */
+    public void onItemEdited(Item item) {
+        index.rename(item.getId(), item.getName(), item.getLikeCount());
+    }
+
+    public void onItemLiked(int itemId) {
+        index.addLikes(itemId, 1);
+    }
+
+    public void onItemRemoved(int itemId) {
+        index.remove(itemId);
+    }
+}
@@ -0,0 +1,70 @@
+package com.managers.item;
+
+import com.entities.Item;
+import com.entities.ItemRanking;
+import com.repository.ItemRepository;
+import com.repository.TrendingIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Trending now": items ranked by recent likes, wishlist adds and purchases,
+ * each counting less the older it is (-Dmall.trending.halfLifeMinutes).
+ *
+ * The trending index is fed by the events below as they arrive and starts
+ * empty at startup. Reading the list never aggregates activity in the
+ * database; only the listed items are loaded, by id.
+ */
+
+public class TrendingManager {
+
+    // How much one event of each kind moves an item
+    public static final double LIKE_WEIGHT = 1;
+    public static final double WISHLIST_WEIGHT = 2;
+    public static final double PURCHASE_WEIGHT = 3;
+
+    private final TrendingIndex index;
+    private final ItemRepository itemRepo;
+
+    public TrendingManager(TrendingIndex index, ItemRepository itemRepo) {
+        this.index = index;
+        this.itemRepo = itemRepo;
+    }
+
+    /** Up to k trending items, best first, with their current score; items gone since are skipped */
+    public List<ItemRanking> top(int k) {
+        List<TrendingIndex.Trend> trends = index.top(k, System.currentTimeMillis());
+        List<Integer> ids = new ArrayList<>(trends.size());
+        for (TrendingIndex.Trend t : trends)
+            ids.add(t.itemId());
+        Map<Integer, Item> found = itemRepo.findByIds(ids);
+
+        List<ItemRanking> result = new ArrayList<>(trends.size());
+        for (TrendingIndex.Trend t : trends) {
+            Item item = found.get(t.itemId());
+            if (item != null)
+                result.add(new ItemRanking(item.getId(), item.getName(), item.getLikeCount(), result.size() + 1,
+                        t.score()));
+        }
+        return result;
+    }
+
+    public void onItemLiked(int itemId) {
+        index.add(itemId, LIKE_WEIGHT, System.currentTimeMillis());
+    }
+
+    public void onWishlistAdded(int itemId) {
+        index.add(itemId, WISHLIST_WEIGHT, System.currentTimeMillis());
+    }
+
+    /** One order line; the quantity does not matter, so a bulk order counts as one purchase */
+    public void onItemPurchased(int itemId) {
+        index.add(itemId, PURCHASE_WEIGHT, System.currentTimeMillis());
+    }
+
+    public void onItemRemoved(int itemId) {
+        index.remove(itemId);
+    }
+}
@@ -38,19 +38,22 @@ public class CancelOrderManager {
         if (order.getStatus() == Order.OrderStatus.CANCELED)
             throw new Exception("Order already canceled");
 
-        // Refund stock
-        List<OrderItem> items = orderItemRepo.findByOrderId(orderId);
-
-        for (OrderItem oi : items) {
-            int newStock = oi.getQuantity();
-            itemRepo.updateStock(oi.getItemId(),
-                    itemRepo.findById(oi.getItemId()).getStockQuantity() + newStock);
-        }
-
-        // Update order status
+        // Update order status; the stock goes back in restock(), once this has committed
         orderRepo.updateStatus(orderId, Order.OrderStatus.CANCELED);
 
         order.setStatus(Order.OrderStatus.CANCELED);
         return order;
     }
+
+    /**
+     * Put back the stock of a canceled order's lines. Call it after cancel()
+     * has committed, outside any transaction: the stock of a sharded item lives
+     * in memory (ShardedStockItemRepository), so a rollback would not undo it.
+     */
+    public void restock(int orderId) {
+        List<OrderItem> items = orderItemRepo.findByOrderId(orderId);
+
+        for (OrderItem oi : items)
+            itemRepo.increaseStock(oi.getItemId(), oi.getQuantity());
+    }
 }
\ No newline at end of file
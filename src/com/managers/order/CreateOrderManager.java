@@ -31,8 +31,16 @@ public class CreateOrderManager {
         if (item == null)
             throw new Exception("Item does not exist");
 
-        if (item.getStockQuantity() < quantity)
-            throw new Exception("Not enough stock");
+        return createOrder(userId, item, quantity);
+    }
+
+    /** Same, for an item the caller has already loaded; nothing is read again */
+    public Order createOrder(int userId, Item item, int quantity) throws Exception {
+
+        if (quantity <= 0)
+            throw new Exception("Quantity must be greater than 0");
+
+        int itemId = item.getId();
 
         // 2. Calculate total
         double totalPrice = item.getPrice() * quantity;
@@ -53,7 +61,7 @@ public class CreateOrderManager {
         OrderItem orderItem = new OrderItem(0, orderId, itemId, quantity, item.getPrice());
         orderItemRepo.insert(orderItem);
 
-        // Note: Stock will be decremented after payment authorization in OrderManagement
+        // Note: Stock is reserved before payment by StockReservationManager
 
         return order;
     }
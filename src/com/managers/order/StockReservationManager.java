@@ -0,0 +1,175 @@
+package com.managers.order;
+
+import com.common.dto.order.OrderCreateRequest;
+import com.repository.ItemRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock held for a checkout between the purchase request and the payment
+ * result.
+ *
+ * reserve() takes every line's quantity from the item's stock up front with a
+ * conditional decrement (ItemRepository.tryDecreaseStock), so two buyers can
+ * never both get the last unit. Each item is its own atomic counter, so
+ * checkouts of different items never wait on each other. A reservation then
+ * ends one of three ways:
+ * - commit(): payment went through, the stock stays taken.
+ * - release(): payment was denied, the stock goes back.
+ * - expiry: nobody resolved it within ttlMs (-Dmall.reservations.ttlMs,
+ *   default 120000). A sweeper releases it, so a lost payment result cannot
+ *   hold stock forever. A payment result that arrives after expiry fails the
+ *   purchase; it never takes the stock again.
+ *
+ * Reservations are keyed by the request object itself. OrderCreateRequest has
+ * identity equality, and the same instance travels through payment
+ * authorization. Whichever of commit, release and expiry removes the
+ * reservation first wins; the others find nothing.
+ */
+
+public class StockReservationManager {
+
+    public static final long DEFAULT_TTL_MS = 120_000;
+
+    /** Quantities taken per item; fixed once reserved */
+    public static final class Reservation {
+        private final Map<Integer, Integer> quantities;
+        private final long expiresAt;
+
+        private Reservation(Map<Integer, Integer> quantities, long expiresAt) {
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+
+        public Map<Integer, Integer> getQuantities() {
+            return quantities;
+        }
+    }
+
+    private final ItemRepository itemRepo;
+    private final long ttlMs;
+    private final ConcurrentHashMap<OrderCreateRequest, Reservation> held = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public StockReservationManager(ItemRepository itemRepo, long ttlMs) {
+        this.itemRepo = itemRepo;
+        this.ttlMs = Math.max(1, ttlMs);
+    }
+
+    public StockReservationManager(ItemRepository itemRepo) {
+        this(itemRepo, Long.getLong("mall.reservations.ttlMs", DEFAULT_TTL_MS));
+    }
+
+    /**
+     * Take the stock of every line of req and hold it until commit, release or
+     * expiry. All or nothing: if any item is short, whatever was taken is put
+     * back and an exception names the item.
+     */
+    public void reserve(OrderCreateRequest req) throws Exception {
+        Reservation reservation = take(req);
+        if (held.putIfAbsent(req, reservation) != null) {
+            restore(reservation);
+            throw new Exception("Purchase already in progress");
+        }
+    }
+
+    /**
+     * Make the stock held for req final and return it. Restore the result if
+     * the order cannot be written.
+     *
+     * If req holds nothing, its reservation expired while payment ran and the
+     * stock already went back, possibly to another buyer. The stock is not taken
+     * again after the fact: commit fails, and the caller fails the purchase
+     * instead of capturing the payment.
+     */
+    public Reservation commit(OrderCreateRequest req) throws Exception {
+        Reservation reservation = held.remove(req);
+        if (reservation == null)
+            throw new Exception("Reservation expired before payment completed");
+        return reservation;
+    }
+
+    /** Put back the stock held for req; false if it holds none */
+    public boolean release(OrderCreateRequest req) {
+        Reservation reservation = held.remove(req);
+        if (reservation == null)
+            return false;
+        restore(reservation);
+        return true;
+    }
+
+    /** Put back the stock of a committed reservation whose order was not written */
+    public void restore(Reservation reservation) {
+        for (Map.Entry<Integer, Integer> e : reservation.quantities.entrySet())
+            itemRepo.increaseStock(e.getKey(), e.getValue());
+    }
+
+    /** Release every reservation past its TTL; returns how many */
+    public int releaseExpired() {
+        long now = System.currentTimeMillis();
+        int released = 0;
+        for (Map.Entry<OrderCreateRequest, Reservation> e : held.entrySet()) {
+            // remove(key, value) loses to a concurrent commit or release
+            if (e.getValue().expiresAt <= now && held.remove(e.getKey(), e.getValue())) {
+                restore(e.getValue());
+                released++;
+            }
+        }
+        if (released > 0)
+            System.out.println("[StockReservationManager] Released " + released + " expired reservations");
+        return released;
+    }
+
+    /** Reservations currently holding stock */
+    public int size() {
+        return held.size();
+    }
+
+    private Reservation take(OrderCreateRequest req) throws Exception {
+        // Lines for the same item are taken together
+        Map<Integer, Integer> wanted = new LinkedHashMap<>();
+        for (OrderCreateRequest.OrderItemRequest line : req.getItems()) {
+            if (line.getQuantity() <= 0)
+                throw new Exception("Quantity must be greater than 0");
+            wanted.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> e : wanted.entrySet()) {
+            if (!itemRepo.tryDecreaseStock(e.getKey(), e.getValue())) {
+                restore(new Reservation(taken, 0));
+                throw new Exception("Not enough stock for item " + e.getKey());
+            }
+            taken.put(e.getKey(), e.getValue());
+        }
+        return new Reservation(taken, System.currentTimeMillis() + ttlMs);
+    }
+
+    public synchronized void start() {
+        if (sweeper != null)
+            return;
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Stock Reservation Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, ttlMs / 4);
+        sweeper.scheduleWithFixedDelay(this::releaseExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stop the sweeper and put back everything still held */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        for (OrderCreateRequest req : held.keySet())
+            release(req);
+    }
+}
@@ -1,5 +1,7 @@
 package com.managers.report;
 
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
 import com.entities.Report;
 import com.repository.ReportRepository;
 import com.repository.OrderRepository;
@@ -8,8 +10,11 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ReportManager {
+    private static final int TOP_ITEMS = 5;
+
     private final ReportRepository reportRepo;
     private final OrderRepository orderRepo;
     private final ItemRepository itemRepo;
@@ -44,8 +49,8 @@ public class ReportManager {
      */
     private Report generateReportForPeriod(Report.ReportType type, long startTime, long endTime) {
         // Get actual data from repositories
-        double totalSales = calculateTotalSales(startTime, endTime);
-        int totalOrders = calculateTotalOrders(startTime, endTime);
+        double totalSales = getTotalSales(startTime, endTime);
+        int totalOrders = getTotalOrders(startTime, endTime);
         List<String> topItems = getTopSellingItems(startTime, endTime);
         int totalItems = getTotalItemsInInventory();
 
@@ -71,7 +76,7 @@ public class ReportManager {
                           "topSellingItems": [
                             %s
                           ],
-                          "notes": "This report shows %s sales data from %s to %s. Orders and sales data are simulated for demonstration."
+                          "notes": "This report shows %s sales data from %s to %s. Units sold per item are simulated for demonstration."
                         }
                         """,
                 type.name(),
@@ -103,60 +108,31 @@ public class ReportManager {
     }
 
     /**
-     * Calculate total sales for period (simulated for now)
-     * TC28: Empty Report - return 0.0 when no sales exist
+     * Total sales of the orders placed in [startTime, endTime), canceled orders
+     * excluded; summed by the repository (an index-covered SUM in SQLite).
+     * TC28: Empty Report - 0 when no orders exist
      */
-    private double calculateTotalSales(long startTime, long endTime) {
-        // TC28: If orderRepo is available, query actual sales
-        if (orderRepo != null) {
-            // TODO: Implement actual query when OrderRepository has findByDateRange method
-            // For now, return 0.0 to simulate empty report scenario
-            // return orderRepo.findByDateRange(startTime, endTime).stream()
-            // .mapToDouble(Order::getTotalAmount).sum();
-        }
-
-        // For now, return simulated data based on items in inventory
-        if (itemRepo != null) {
-            List<com.entities.Item> items = itemRepo.findAll();
-            if (items.isEmpty()) {
-                // TC28: Empty Report - return 0.0 when no items
-                return 0.0;
-            }
-            return items.stream().mapToDouble(item -> item.getPrice()).sum() * 0.1; // Simulate 10% of inventory value
-                                                                                    // as sales
-        }
-        // TC28: Return 0.0 for empty report instead of simulated value
-        return 0.0;
+    private double getTotalSales(long startTime, long endTime) {
+        return orderRepo == null ? 0.0 : orderRepo.computeTotalSales(startTime, endTime - 1);
     }
 
-    /**
-     * Calculate total orders for period (simulated for now)
-     * TC28: Empty Report - return 0 when no orders exist
-     */
-    private int calculateTotalOrders(long startTime, long endTime) {
-        // TC28: If orderRepo is available, query actual orders
-        if (orderRepo != null) {
-            // TODO: Implement actual query when OrderRepository has findByDateRange method
-            // For now, return 0 to simulate empty report scenario
-            // return orderRepo.findByDateRange(startTime, endTime).size();
-        }
-
-        // TC28: Return 0 for empty report instead of random value
-        return 0;
+    /** Number of orders placed in [startTime, endTime), canceled orders excluded */
+    private int getTotalOrders(long startTime, long endTime) {
+        return orderRepo == null ? 0 : orderRepo.countOrders(startTime, endTime - 1);
     }
 
     /**
-     * Get top selling items (simulated for now)
+     * Get top selling items (most liked items; units sold are simulated for now)
      */
     private List<String> getTopSellingItems(long startTime, long endTime) {
         List<String> topItems = new java.util.ArrayList<>();
 
         if (itemRepo != null) {
-            List<com.entities.Item> items = itemRepo.findAll();
-            int limit = Math.min(5, items.size()); // Top 5 items or all if less than 5
+            // Top 5 items or all if less than 5, read from the like_count index
+            List<com.entities.Item> items = itemRepo.findPage(new ItemFilter(null), ItemSort.POPULAR, null, null,
+                    TOP_ITEMS);
 
-            for (int i = 0; i < limit; i++) {
-                com.entities.Item item = items.get(i);
+            for (com.entities.Item item : items) {
                 int simulatedSales = (int) (Math.random() * 20) + 1;
                 String itemJson = String.format(
                         "{ \"itemId\": %d, \"name\": \"%s\", \"price\": %.2f, \"unitsSold\": %d, \"revenue\": %.2f }",
@@ -182,8 +158,9 @@ public class ReportManager {
      */
     private int getTotalItemsInInventory() {
         if (itemRepo != null) {
-            List<com.entities.Item> items = itemRepo.findAll();
-            return items.stream().mapToInt(com.entities.Item::getStockQuantity).sum();
+            LongAdder totalStock = new LongAdder();
+            itemRepo.forEach(item -> totalStock.add(item.getStockQuantity()));
+            return totalStock.intValue();
         }
         return 150; // Default simulated value
     }
@@ -0,0 +1,349 @@
+package com.repository;
+
+import com.common.Database;
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
+import com.entities.Item;
+import com.entities.ItemRanking;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache of items by id in front of another ItemRepository.
+ *
+ * findById and findByIds are served from a bounded LRU map (capacity from
+ * -Dmall.cache.items, default 10000); misses are loaded from the delegate, in
+ * one query for findByIds. Every write through this repository evicts the item
+ * it touches, and invalidate / invalidateAll let event listeners evict changes
+ * made elsewhere.
+ *
+ * A loaded item is only stored if no invalidation happened while it was being
+ * read, so a slow read cannot put back a value a concurrent write replaced.
+ * Inside a database transaction the cache is bypassed: those reads can see
+ * uncommitted rows. Items are copied in and out, as the other repositories do.
+ */
+public class CachedItemRepository implements ItemRepository {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /** Counters since startup */
+    public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d size=%d/%d",
+                    hits, misses, hitRate() * 100, evictions, size, capacity);
+        }
+    }
+
+    private final ItemRepository delegate;
+    // Null when there are no transactions to bypass (in-memory storage)
+    private final Database db;
+    private final int capacity;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by itself
+    private final LinkedHashMap<Integer, Item> entries;
+    // Bumped by every invalidation; a load only populates if it is unchanged
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachedItemRepository(ItemRepository delegate, Database db, int capacity) {
+        this.delegate = delegate;
+        this.db = db;
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Item> eldest) {
+                if (size() <= CachedItemRepository.this.capacity)
+                    return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public CachedItemRepository(ItemRepository delegate, Database db) {
+        this(delegate, db, Integer.getInteger("mall.cache.items", DEFAULT_CAPACITY));
+    }
+
+    private static Item copy(Item i) {
+        return new Item(i.getId(), i.getName(), i.getDescription(), i.getCategory(), i.getPrice(),
+                i.getStockQuantity(), i.getLikeCount());
+    }
+
+    private boolean bypass() {
+        return db != null && db.isInTransaction();
+    }
+
+    // ===== INVALIDATION =====
+
+    public void invalidate(int itemId) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.remove(itemId);
+        }
+    }
+
+    /**
+     * Evict itemId unless the cached copy already equals item, e.g. when an
+     * update event reports a change that was written through this cache.
+     */
+    public void invalidateUnlessCurrent(Item item) {
+        synchronized (entries) {
+            Item cached = entries.get(item.getId());
+            if (cached != null && sameValues(cached, item))
+                return;
+        }
+        invalidate(item.getId());
+    }
+
+    private static boolean sameValues(Item a, Item b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getCategory(), b.getCategory())
+                && a.getPrice() == b.getPrice()
+                && a.getStockQuantity() == b.getStockQuantity()
+                && a.getLikeCount() == b.getLikeCount();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, capacity);
+    }
+
+    public void printStats() {
+        System.out.println("[ItemCache] " + getStats());
+    }
+
+    // ===== CACHED READS =====
+
+    @Override
+    public Item findById(int id) {
+        if (bypass())
+            return delegate.findById(id);
+
+        synchronized (entries) {
+            Item cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return copy(cached);
+            }
+        }
+        misses.increment();
+
+        long gen = generation.get();
+        Item loaded = delegate.findById(id);
+        if (loaded != null)
+            store(gen, List.of(loaded));
+        return loaded;
+    }
+
+    @Override
+    public Map<Integer, Item> findByIds(Collection<Integer> ids) {
+        if (bypass())
+            return delegate.findByIds(ids);
+
+        Map<Integer, Item> found = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        synchronized (entries) {
+            for (int id : ids) {
+                if (found.containsKey(id))
+                    continue;
+                Item cached = entries.get(id);
+                if (cached != null) {
+                    hits.increment();
+                    found.put(id, copy(cached));
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+        if (missing.isEmpty())
+            return found;
+        misses.add(missing.size());
+
+        long gen = generation.get();
+        Map<Integer, Item> loaded = delegate.findByIds(missing);
+        store(gen, loaded.values());
+        found.putAll(loaded);
+        return found;
+    }
+
+    /** Cache freshly loaded items unless something was invalidated since gen was read */
+    private void store(long gen, Collection<Item> loaded) {
+        synchronized (entries) {
+            if (generation.get() != gen)
+                return;
+            for (Item item : loaded)
+                entries.put(item.getId(), copy(item));
+        }
+    }
+
+    // ===== WRITES (evict what they touch) =====
+
+    @Override
+    public int insert(Item item) {
+        return delegate.insert(item);
+    }
+
+    @Override
+    public void update(Item item) {
+        try {
+            delegate.update(item);
+        } finally {
+            invalidate(item.getId());
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean insertLike(int userId, int itemId) {
+        boolean added = delegate.insertLike(userId, itemId);
+        if (added)
+            countLike(itemId);
+        return added;
+    }
+
+    @Override
+    public void incrementLikeCount(int itemId) {
+        delegate.incrementLikeCount(itemId);
+        countLike(itemId);
+    }
+
+    /**
+     * Bump the cached like count in place rather than evicting, so a hot item
+     * stays cached while it is being liked. Stored entries are private copies.
+     */
+    private void countLike(int itemId) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            Item cached = entries.get(itemId);
+            if (cached != null)
+                cached.setLikeCount(cached.getLikeCount() + 1);
+        }
+    }
+
+    @Override
+    public void updateStock(int itemId, int newStock) {
+        try {
+            delegate.updateStock(itemId, newStock);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    @Override
+    public void increaseStock(int itemId, int amount) {
+        try {
+            delegate.increaseStock(itemId, amount);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    @Override
+    public void decreaseStock(int itemId, int amount) {
+        try {
+            delegate.decreaseStock(itemId, amount);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    @Override
+    public boolean tryDecreaseStock(int itemId, int amount) {
+        try {
+            return delegate.tryDecreaseStock(itemId, amount);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    // ===== UNCACHED =====
+
+    @Override
+    public List<Item> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEach(Consumer<Item> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public List<Item> findPage(ItemFilter filter, ItemSort sort, Double afterKey, Integer afterId, int limit) {
+        return delegate.findPage(filter, sort, afterKey, afterId, limit);
+    }
+
+    @Override
+    public List<Item> findLowStock(int threshold, int limit) {
+        return delegate.findLowStock(threshold, limit);
+    }
+
+    @Override
+    public List<Item> searchByKeyword(String keyword) {
+        return delegate.searchByKeyword(keyword);
+    }
+
+    @Override
+    public List<Item> search(String query, ItemFilter filter, int limit) {
+        return delegate.search(query, filter, limit);
+    }
+
+    @Override
+    public String correctQuery(String query) {
+        return delegate.correctQuery(query);
+    }
+
+    @Override
+    public ItemFacets facets(String category) {
+        return delegate.facets(category);
+    }
+
+    @Override
+    public boolean existsLike(int userId, int itemId) {
+        return delegate.existsLike(userId, itemId);
+    }
+
+    @Override
+    public List<ItemRanking> computeRanking() {
+        return delegate.computeRanking();
+    }
+}
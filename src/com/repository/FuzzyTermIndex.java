@@ -0,0 +1,197 @@
+package com.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Vocabulary of the search index, used to correct misspelled query words.
+ *
+ * Corrections are terms within one typo of the word: one inserted, missing or
+ * wrong letter, or two adjacent letters swapped. Candidates come from a
+ * symmetric-delete index: every term is stored under itself and each of its
+ * one-letter deletions, and a word is looked up the same way, so two strings
+ * one typo apart always share a key. Each candidate is then verified with a
+ * bounded edit distance. A lookup costs O(word length) map probes, however
+ * large the vocabulary; nothing scans the vocabulary or the item table.
+ *
+ * Every term carries the number of items containing it; the most common of
+ * several equally close terms wins. Terms with digits (model numbers, ids) are
+ * neither corrected nor suggested.
+ */
+final class FuzzyTermIndex {
+
+    /** Words shorter than this are never corrected (too many neighbours) */
+    static final int MIN_WORD_LENGTH = 4;
+    /** Edits allowed between a word and its correction */
+    static final int MAX_DISTANCE = 1;
+
+    // Item count per live term, sorted so prefix checks are a ceiling lookup
+    private final NavigableMap<String, Integer> counts = new TreeMap<>();
+    // Term and one-letter deletions of term -> terms
+    private final Map<String, List<String>> variants = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static boolean correctable(String word) {
+        if (word.length() < MIN_WORD_LENGTH)
+            return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /** word and every string made by deleting one of its letters */
+    private static Set<String> keys(String word) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(word);
+        for (int i = 0; i < word.length(); i++)
+            keys.add(word.substring(0, i) + word.substring(i + 1));
+        return keys;
+    }
+
+    /** Add delta to the item count of term (adding or dropping the term as needed) */
+    void add(String term, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer old = counts.get(term);
+            int count = (old == null ? 0 : old) + delta;
+            if (count > 0) {
+                counts.put(term, count);
+                if (old == null && correctable(term)) {
+                    for (String key : keys(term))
+                        variants.computeIfAbsent(key, k -> new ArrayList<>(1)).add(term);
+                }
+            } else if (old != null) {
+                counts.remove(term);
+                if (correctable(term)) {
+                    for (String key : keys(term)) {
+                        List<String> terms = variants.get(key);
+                        terms.remove(term);
+                        if (terms.isEmpty())
+                            variants.remove(key);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** True if some term starts with word (the way search matches words) */
+    boolean matchesPrefix(String word) {
+        lock.readLock().lock();
+        try {
+            String next = counts.ceilingKey(word);
+            return next != null && next.startsWith(word);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The most common term one typo away from word, or null if there is none */
+    String closest(String word) {
+        if (!correctable(word))
+            return null;
+
+        lock.readLock().lock();
+        try {
+            String best = null;
+            int bestCount = 0;
+            for (String key : keys(word)) {
+                List<String> terms = variants.get(key);
+                if (terms == null)
+                    continue;
+                for (String term : terms) {
+                    int count = counts.get(term);
+                    if (count > bestCount && distance(word, term, MAX_DISTANCE) <= MAX_DISTANCE) {
+                        best = term;
+                        bestCount = count;
+                    }
+                }
+            }
+            return best;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The query words joined again, each word that matches no term replaced by
+     * its closest term; null if no word could be corrected.
+     */
+    String correct(List<String> words) {
+        StringBuilder corrected = new StringBuilder();
+        boolean changed = false;
+        for (String word : words) {
+            String replacement = word;
+            if (!matchesPrefix(word)) {
+                String closest = closest(word);
+                if (closest != null) {
+                    replacement = closest;
+                    changed = true;
+                }
+            }
+            if (corrected.length() > 0)
+                corrected.append(' ');
+            corrected.append(replacement);
+        }
+        return changed ? corrected.toString() : null;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return counts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Edit distance of a and b counting insertions, deletions, substitutions
+     * and swaps of adjacent letters (optimal string alignment), or max + 1 as
+     * soon as it is certain to exceed max.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max)
+            return max + 1;
+
+        int[] twoBack = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++)
+            previous[j] = j;
+
+        int previousMin = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    d = Math.min(d, twoBack[j - 2] + 1);
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            // Later rows build on this row (+0) and, through swaps, on the one before (+1)
+            if (rowMin > max && previousMin + 1 > max)
+                return max + 1;
+            previousMin = rowMin;
+            int[] recycled = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
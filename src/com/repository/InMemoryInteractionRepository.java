@@ -0,0 +1,42 @@
+package com.repository;
+
+import com.entities.Order;
+import com.entities.OrderItem;
+
+/**
+ * InteractionRepository over the in-memory repositories: their likes, their
+ * wishlist entries and the lines of their orders that were not canceled.
+ */
+public class InMemoryInteractionRepository implements InteractionRepository {
+
+    private final InMemoryItemRepository items;
+    private final InMemoryWishlistRepository wishlist;
+    private final OrderRepository orders;
+    private final OrderItemRepository orderItems;
+
+    public InMemoryInteractionRepository(InMemoryItemRepository items, InMemoryWishlistRepository wishlist,
+            OrderRepository orders, OrderItemRepository orderItems) {
+        this.items = items;
+        this.wishlist = wishlist;
+        this.orders = orders;
+        this.orderItems = orderItems;
+    }
+
+    @Override
+    public int forEachInteraction(PairConsumer action) {
+        int[] count = { 0 };
+        PairConsumer counting = (customerId, itemId) -> {
+            action.accept(customerId, itemId);
+            count[0]++;
+        };
+        items.forEachLike(counting);
+        wishlist.forEachEntry(counting);
+        orders.forEachInPeriod(Long.MIN_VALUE, Long.MAX_VALUE, order -> {
+            if (order.getStatus() == Order.OrderStatus.CANCELED)
+                return;
+            for (OrderItem line : orderItems.findByOrderId(order.getId()))
+                counting.accept(order.getCustomerId(), line.getItemId());
+        });
+        return count[0];
+    }
+}
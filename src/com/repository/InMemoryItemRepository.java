@@ -0,0 +1,336 @@
+package com.repository;
+
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
+import com.entities.Item;
+import com.entities.ItemRanking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * ItemRepository kept entirely in memory.
+ *
+ * Items are stored as private copies and copied again on every read, so callers
+ * get the same value semantics as with SQLite. Stored items are never mutated:
+ * per-item updates (likes, stock) replace the entry with a modified copy inside
+ * ConcurrentHashMap.computeIfPresent, which is atomic per item.
+ *
+ * Sorted indexes on id, price, likes and stock are updated inside the same
+ * compute calls, so browse pages, price ranges and the low-stock list read
+ * O(log n + k) entries instead of scanning every item.
+ */
+public class InMemoryItemRepository implements ItemRepository {
+
+    private final ConcurrentHashMap<Integer, Item> items = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // (customerId, itemId) pairs packed into one long
+    private final Set<Long> likes = ConcurrentHashMap.newKeySet();
+
+    // Full-text index over name and description, kept in step with insert/update/delete
+    private final ItemSearchIndex searchIndex = new ItemSearchIndex();
+
+    // Category and price-bucket counts, kept in step the same way
+    private final ItemFacetIndex facetIndex = new ItemFacetIndex();
+
+    // (value, id) orders for findPage and findLowStock
+    private final ItemValueIndex byId = new ItemValueIndex();
+    private final ItemValueIndex byPrice = new ItemValueIndex();
+    private final ItemValueIndex byLikes = new ItemValueIndex();
+    private final ItemValueIndex byStock = new ItemValueIndex();
+
+    private static Item copy(Item i) {
+        return new Item(i.getId(), i.getName(), i.getDescription(), i.getCategory(), i.getPrice(),
+                i.getStockQuantity(), i.getLikeCount());
+    }
+
+    private static long likeKey(int userId, int itemId) {
+        return ((long) userId << 32) | (itemId & 0xffffffffL);
+    }
+
+    @Override
+    public Item findById(int id) {
+        Item item = items.get(id);
+        return item == null ? null : copy(item);
+    }
+
+    @Override
+    public Map<Integer, Item> findByIds(Collection<Integer> ids) {
+        Map<Integer, Item> found = new HashMap<>();
+        for (int id : ids) {
+            Item item = items.get(id);
+            if (item != null)
+                found.put(id, copy(item));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Item> findAll() {
+        List<Item> list = new ArrayList<>(items.size());
+        forEach(list::add);
+        list.sort(Comparator.comparingInt(Item::getId));
+        return list;
+    }
+
+    @Override
+    public void forEach(Consumer<Item> action) {
+        for (Item item : items.values())
+            action.accept(copy(item));
+    }
+
+    @Override
+    public List<Item> findPage(ItemFilter filter, ItemSort sort, Double afterKey, Integer afterId, int limit) {
+        if (limit <= 0)
+            return List.of();
+
+        // Same orders as the SQL in SQLiteItemRepository.findPage. The price bounds
+        // narrow the range of the price index; other filters are checked per entry
+        Double minPrice = filter == null ? null : filter.getMinPrice();
+        Double maxPrice = filter == null ? null : filter.getMaxPrice();
+        NavigableSet<ItemValueIndex.Key> order = switch (sort) {
+            case NEWEST -> byId.between(null, null).descendingSet();
+            case PRICE_LOW -> byPrice.between(minPrice, maxPrice);
+            case PRICE_HIGH -> byPrice.between(minPrice, maxPrice).descendingSet();
+            case POPULAR -> byLikes.between(null, null).descendingSet();
+        };
+        if (afterId != null) {
+            double key = sort == ItemSort.NEWEST ? afterId : afterKey == null ? 0 : afterKey;
+            order = order.tailSet(ItemValueIndex.key(key, afterId), false);
+        }
+
+        List<Item> page = new ArrayList<>(limit);
+        for (ItemValueIndex.Key key : order) {
+            Item item = items.get(key.id());
+            // Skip the old key of an item being re-keyed right now
+            if (item == null || sortValue(sort, item) != key.value() || !matches(filter, item))
+                continue;
+            page.add(copy(item));
+            if (page.size() == limit)
+                break;
+        }
+        return page;
+    }
+
+    private static double sortValue(ItemSort sort, Item item) {
+        return switch (sort) {
+            case NEWEST -> item.getId();
+            case PRICE_LOW, PRICE_HIGH -> item.getPrice();
+            case POPULAR -> item.getLikeCount();
+        };
+    }
+
+    private static boolean matches(ItemFilter filter, Item item) {
+        if (filter == null)
+            return true;
+        return (filter.getCategory() == null || Objects.equals(filter.getCategory(), item.getCategory()))
+                && (filter.getMinPrice() == null || item.getPrice() >= filter.getMinPrice())
+                && (filter.getMaxPrice() == null || item.getPrice() <= filter.getMaxPrice())
+                && (!filter.isInStockOnly() || item.getStockQuantity() > 0);
+    }
+
+    @Override
+    public List<Item> findLowStock(int threshold, int limit) {
+        List<Item> low = new ArrayList<>();
+        if (limit <= 0)
+            return low;
+        for (ItemValueIndex.Key key : byStock.between(null, (double) threshold)) {
+            Item item = items.get(key.id());
+            if (item == null || item.getStockQuantity() != key.value())
+                continue;
+            low.add(copy(item));
+            if (low.size() == limit)
+                break;
+        }
+        return low;
+    }
+
+    /**
+     * Move an item's entries in the sorted indexes from old's values to
+     * updated's; either may be null (insert, delete). Called inside the
+     * compute that replaces the item.
+     */
+    private void reindex(Item old, Item updated) {
+        if (old == null) {
+            int id = updated.getId();
+            byId.add(id, id);
+            byPrice.add(id, updated.getPrice());
+            byLikes.add(id, updated.getLikeCount());
+            byStock.add(id, updated.getStockQuantity());
+        } else if (updated == null) {
+            int id = old.getId();
+            byId.remove(id, id);
+            byPrice.remove(id, old.getPrice());
+            byLikes.remove(id, old.getLikeCount());
+            byStock.remove(id, old.getStockQuantity());
+        } else {
+            int id = old.getId();
+            byPrice.move(id, old.getPrice(), updated.getPrice());
+            byLikes.move(id, old.getLikeCount(), updated.getLikeCount());
+            byStock.move(id, old.getStockQuantity(), updated.getStockQuantity());
+        }
+    }
+
+    @Override
+    public int insert(Item item) {
+        int id = nextId.getAndIncrement();
+        Item stored = copy(item);
+        stored.setId(id);
+        items.compute(id, (key, none) -> {
+            searchIndex.put(id, stored.getName(), stored.getDescription());
+            facetIndex.put(id, stored.getCategory(), stored.getPrice());
+            reindex(null, stored);
+            return stored;
+        });
+        return id;
+    }
+
+    @Override
+    public void update(Item item) {
+        // Re-indexed inside compute so concurrent updates of one item index in the same order they apply
+        items.computeIfPresent(item.getId(), (id, old) -> {
+            searchIndex.put(id, item.getName(), item.getDescription());
+            facetIndex.put(id, item.getCategory(), item.getPrice());
+            Item updated = copy(item);
+            updated.setLikeCount(old.getLikeCount());
+            updated.setStockQuantity(old.getStockQuantity());
+            reindex(old, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public void delete(int id) {
+        items.computeIfPresent(id, (key, old) -> {
+            searchIndex.remove(key);
+            facetIndex.remove(key);
+            reindex(old, null);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Item> searchByKeyword(String keyword) {
+        return search(keyword, DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Override
+    public List<Item> search(String query, ItemFilter filter, int limit) {
+        List<Item> result = new ArrayList<>();
+        for (int id : searchIndex.search(query, id -> {
+            Item item = items.get(id);
+            return item != null && matches(filter, item);
+        }, limit)) {
+            Item item = items.get(id);
+            if (item != null)
+                result.add(copy(item));
+        }
+        return result;
+    }
+
+    @Override
+    public String correctQuery(String query) {
+        return searchIndex.correctQuery(query);
+    }
+
+    @Override
+    public ItemFacets facets(String category) {
+        return facetIndex.facets(category);
+    }
+
+    @Override
+    public boolean existsLike(int userId, int itemId) {
+        return likes.contains(likeKey(userId, itemId));
+    }
+
+    @Override
+    public boolean insertLike(int userId, int itemId) {
+        if (!likes.add(likeKey(userId, itemId)))
+            return false;
+        incrementLikeCount(itemId);
+        return true;
+    }
+
+    /** Every (userId, itemId) like, for InMemoryInteractionRepository */
+    void forEachLike(InteractionRepository.PairConsumer action) {
+        for (long key : likes)
+            action.accept((int) (key >>> 32), (int) key);
+    }
+
+    @Override
+    public void incrementLikeCount(int itemId) {
+        items.computeIfPresent(itemId, (id, item) -> {
+            Item updated = copy(item);
+            updated.setLikeCount(item.getLikeCount() + 1);
+            reindex(item, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public void updateStock(int itemId, int newStock) {
+        items.computeIfPresent(itemId, (id, item) -> {
+            Item updated = copy(item);
+            updated.setStockQuantity(newStock);
+            reindex(item, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public void increaseStock(int itemId, int amount) {
+        items.computeIfPresent(itemId, (id, item) -> {
+            Item updated = copy(item);
+            updated.setStockQuantity(item.getStockQuantity() + amount);
+            reindex(item, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public void decreaseStock(int itemId, int amount) {
+        items.computeIfPresent(itemId, (id, item) -> {
+            Item updated = copy(item);
+            updated.setStockQuantity(Math.max(0, item.getStockQuantity() - amount));
+            reindex(item, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public boolean tryDecreaseStock(int itemId, int amount) {
+        // compute holds the item's bin, so the check and the decrement are one step
+        boolean[] taken = new boolean[1];
+        items.computeIfPresent(itemId, (id, item) -> {
+            if (item.getStockQuantity() < amount)
+                return item;
+            Item updated = copy(item);
+            updated.setStockQuantity(item.getStockQuantity() - amount);
+            reindex(item, updated);
+            taken[0] = true;
+            return updated;
+        });
+        return taken[0];
+    }
+
+    @Override
+    public List<ItemRanking> computeRanking() {
+        return items.values().stream()
+                .sorted(Comparator.comparingInt(Item::getLikeCount).reversed())
+                .limit(10)
+                .map(i -> new ItemRanking(i.getId(), i.getName(), i.getLikeCount(), 0))
+                .toList();
+    }
+}
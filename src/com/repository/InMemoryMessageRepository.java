@@ -0,0 +1,289 @@
+package com.repository;
+
+import com.entities.Conversation;
+import com.entities.User;
+import com.entities.UserMessage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * MessageRepository kept entirely in memory.
+ *
+ * Mirrors the conversations/messages tables: each message belongs to a
+ * conversation keyed by (customer, subject). Messages are indexed by the
+ * conversation's customer (almost every query filters on it) and by sender.
+ * Roles are looked up through the UserRepository, as SQLite does through the
+ * users table.
+ */
+public class InMemoryMessageRepository extends MessageRepository {
+
+    private static final Comparator<StoredMessage> OLDEST_FIRST = Comparator
+            .comparingLong((StoredMessage m) -> m.createdAt).thenComparingInt(m -> m.id);
+
+    /** One row of conversations */
+    private record StoredConversation(int id, int customerId, String subject, long createdAt) {
+    }
+
+    /** One row of messages joined with its conversation */
+    private static final class StoredMessage {
+        final int id;
+        final StoredConversation conversation;
+        final int userId;
+        final String role;
+        final String content;
+        final long createdAt; // seconds, like the table
+        volatile boolean read;
+
+        StoredMessage(int id, StoredConversation conversation, int userId, String role, String content,
+                boolean read, long createdAt) {
+            this.id = id;
+            this.conversation = conversation;
+            this.userId = userId;
+            this.role = role;
+            this.content = content;
+            this.read = read;
+            this.createdAt = createdAt;
+        }
+
+        int customerId() {
+            return conversation.customerId();
+        }
+    }
+
+    private final UserRepository users;
+
+    private final ConcurrentHashMap<String, StoredConversation> conversationsByKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, List<StoredMessage>> byCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, List<StoredMessage>> bySender = new ConcurrentHashMap<>();
+    private final AtomicInteger nextConversationId = new AtomicInteger(1);
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+
+    public InMemoryMessageRepository(UserRepository users) {
+        this.users = users;
+    }
+
+    @Override
+    public UserMessage save(UserMessage msg) {
+        StoredConversation conversation = getOrCreateConversation(msg);
+
+        long timestamp = System.currentTimeMillis();
+        StoredMessage stored = new StoredMessage(
+                nextMessageId.getAndIncrement(),
+                conversation,
+                msg.getSenderId(),
+                determineUserRole(msg.getSenderId()),
+                msg.getContent(),
+                msg.getStatus() == UserMessage.MessageStatus.READ,
+                timestamp / 1000);
+
+        byCustomer.computeIfAbsent(conversation.customerId(), k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(stored);
+        bySender.computeIfAbsent(stored.userId, k -> Collections.synchronizedList(new ArrayList<>())).add(stored);
+
+        msg.setId(stored.id);
+        msg.setTimeStamp(timestamp);
+        return msg;
+    }
+
+    @Override
+    public List<UserMessage> getConversation(int userId, int staffId) {
+        List<StoredMessage> found = select(forCustomer(userId), m -> true);
+        if (staffId != userId)
+            found.addAll(select(forCustomer(staffId), m -> true));
+        return toMessages(found, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<UserMessage> getUnreadMessages(int userId, int staffId) {
+        return toMessages(select(forCustomer(userId), m -> m.userId != staffId && !m.read), true,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void markRead(int userId, int staffId) {
+        markWhere(forCustomer(userId), m -> m.userId == userId);
+    }
+
+    @Override
+    public List<Integer> getConversationPartners(int staffId) {
+        List<Integer> partners = new ArrayList<>();
+        for (Map.Entry<Integer, List<StoredMessage>> e : byCustomer.entrySet()) {
+            if (!e.getValue().isEmpty())
+                partners.add(e.getKey());
+        }
+        return partners;
+    }
+
+    @Override
+    public List<UserMessage> getMessageHistory(int userId) {
+        return toMessages(history(userId), false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void forEachMessageInHistory(int userId, Consumer<UserMessage> action) {
+        List<StoredMessage> found = history(userId);
+        found.sort(OLDEST_FIRST);
+        for (StoredMessage m : found)
+            action.accept(toMessage(m));
+    }
+
+    private List<StoredMessage> history(int userId) {
+        // c.customer_id = ? OR m.user_id = ?, without duplicates
+        List<StoredMessage> found = select(forCustomer(userId), m -> true);
+        found.addAll(select(bySender.getOrDefault(userId, List.of()), m -> m.customerId() != userId));
+        return found;
+    }
+
+    @Override
+    public List<Conversation> getConversationsForUser(int userId) {
+        boolean customer = "Customer".equals(determineUserRole(userId));
+
+        // Group messages by conversation
+        Map<StoredConversation, List<StoredMessage>> grouped = new HashMap<>();
+        for (StoredConversation c : conversationsByKey.values()) {
+            if (!customer || c.customerId() == userId)
+                grouped.put(c, new ArrayList<>());
+        }
+        Collection<List<StoredMessage>> sources = customer
+                ? List.of(forCustomer(userId))
+                : byCustomer.values();
+        for (List<StoredMessage> source : sources) {
+            for (StoredMessage m : select(source, m -> true)) {
+                List<StoredMessage> group = grouped.get(m.conversation);
+                if (group != null)
+                    group.add(m);
+            }
+        }
+
+        List<Conversation> result = new ArrayList<>();
+        Map<Conversation, Long> lastTimes = new HashMap<>();
+        for (Map.Entry<StoredConversation, List<StoredMessage>> e : grouped.entrySet()) {
+            List<StoredMessage> messages = e.getValue();
+            int unread = 0;
+            StoredMessage last = null;
+            for (StoredMessage m : messages) {
+                boolean counts = customer ? m.userId != userId : "Customer".equals(m.role);
+                if (!m.read && counts)
+                    unread++;
+                if (last == null || OLDEST_FIRST.compare(m, last) > 0)
+                    last = m;
+            }
+
+            int customerId = e.getKey().customerId();
+            Conversation conv = new Conversation();
+            conv.setCustomerId(customerId);
+            conv.setStaffId(userId);
+            conv.setCustomerName("Customer " + customerId);
+            conv.setStaffName("Staff " + userId);
+            conv.setUnreadCount(unread);
+            conv.setLastMessage(last == null ? null : last.content);
+            conv.setLastMessageTime(last == null ? 0 : last.createdAt * 1000);
+            result.add(conv);
+            lastTimes.put(conv, last == null ? Long.MIN_VALUE : last.createdAt);
+        }
+
+        // ORDER BY last_message_time DESC (conversations without messages last)
+        result.sort(Comparator.comparingLong((Conversation c) -> lastTimes.get(c)).reversed());
+        return result;
+    }
+
+    @Override
+    public List<UserMessage> getUnreadMessagesForStaff(int staffId) {
+        List<StoredMessage> found = new ArrayList<>();
+        for (List<StoredMessage> source : byCustomer.values()) {
+            found.addAll(select(source, m -> !m.read
+                    && (m.userId != staffId || (m.customerId() != staffId && m.userId == m.customerId()))));
+        }
+        return toMessages(found, true, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<UserMessage> getConversationMessages(int customerId, int viewerId) {
+        return toMessages(select(forCustomer(customerId), m -> true), false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void markMessagesAsRead(int customerId, int viewerId) {
+        markWhere(forCustomer(customerId), m -> m.userId != viewerId);
+    }
+
+    @Override
+    public void markCustomerMessagesAsReadByStaff(int customerId, int staffId) {
+        markWhere(forCustomer(customerId), m -> m.userId == customerId);
+    }
+
+    @Override
+    public List<UserMessage> getRecentMessagesFromCustomer(int customerId, int limit) {
+        return toMessages(select(forCustomer(customerId), m -> "Customer".equals(m.role)), true, limit);
+    }
+
+    // === HELPER METHODS ===
+
+    private StoredConversation getOrCreateConversation(UserMessage msg) {
+        int customerId = msg.getRecipientId() == -1 ? msg.getSenderId()
+                : Math.min(msg.getSenderId(), msg.getRecipientId());
+        String subject = msg.getSubject() != null ? msg.getSubject() : "General Inquiry";
+
+        return conversationsByKey.computeIfAbsent(customerId + "\u0000" + subject,
+                k -> new StoredConversation(nextConversationId.getAndIncrement(), customerId, subject,
+                        System.currentTimeMillis() / 1000));
+    }
+
+    private String determineUserRole(int userId) {
+        User user = users == null ? null : users.findById(userId);
+        if (user == null || user.getRole() == null)
+            return "Customer";
+        return switch (user.getRole()) {
+            case CUSTOMER -> "Customer";
+            case STAFF -> "Staff";
+            case CEO -> "CEO";
+        };
+    }
+
+    private List<StoredMessage> forCustomer(int customerId) {
+        return byCustomer.getOrDefault(customerId, List.of());
+    }
+
+    private static List<StoredMessage> select(List<StoredMessage> source, Predicate<StoredMessage> filter) {
+        List<StoredMessage> found = new ArrayList<>();
+        synchronized (source) {
+            for (StoredMessage m : source) {
+                if (filter.test(m))
+                    found.add(m);
+            }
+        }
+        return found;
+    }
+
+    private static void markWhere(List<StoredMessage> source, Predicate<StoredMessage> filter) {
+        for (StoredMessage m : select(source, filter))
+            m.read = true;
+    }
+
+    private static List<UserMessage> toMessages(List<StoredMessage> found, boolean newestFirst, int limit) {
+        found.sort(newestFirst ? OLDEST_FIRST.reversed() : OLDEST_FIRST);
+        List<UserMessage> list = new ArrayList<>(Math.min(found.size(), limit));
+        for (StoredMessage m : found) {
+            if (list.size() >= limit)
+                break;
+            list.add(toMessage(m));
+        }
+        return list;
+    }
+
+    private static UserMessage toMessage(StoredMessage m) {
+        UserMessage msg = new UserMessage();
+        msg.setId(m.id);
+        msg.setSenderId(m.userId);
+        msg.setRecipientId(m.customerId());
+        msg.setSubject(m.conversation.subject());
+        msg.setContent(m.content);
+        msg.setTimeStamp(m.createdAt * 1000);
+        msg.setStatus(m.read ? UserMessage.MessageStatus.READ : UserMessage.MessageStatus.UNREAD);
+        return msg;
+    }
+}
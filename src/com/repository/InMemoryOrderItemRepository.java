@@ -0,0 +1,41 @@
+package com.repository;
+
+import com.entities.OrderItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OrderItemRepository kept entirely in memory, indexed by order id.
+ */
+public class InMemoryOrderItemRepository implements OrderItemRepository {
+
+    private final ConcurrentHashMap<Integer, Queue<OrderItem>> byOrder = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private static OrderItem copy(OrderItem i) {
+        return new OrderItem(i.getId(), i.getOrderId(), i.getItemId(), i.getQuantity(), i.getPriceAtPurchase());
+    }
+
+    @Override
+    public void insert(OrderItem item) {
+        OrderItem stored = copy(item);
+        stored.setId(nextId.getAndIncrement());
+        byOrder.computeIfAbsent(stored.getOrderId(), k -> new ConcurrentLinkedQueue<>()).add(stored);
+    }
+
+    @Override
+    public List<OrderItem> findByOrderId(int orderId) {
+        List<OrderItem> list = new ArrayList<>();
+        Queue<OrderItem> items = byOrder.get(orderId);
+        if (items != null) {
+            for (OrderItem item : items)
+                list.add(copy(item));
+        }
+        return list;
+    }
+}
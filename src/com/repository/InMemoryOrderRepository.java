@@ -0,0 +1,134 @@
+package com.repository;
+
+import com.entities.Order;
+import com.entities.Order.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * OrderRepository kept entirely in memory.
+ *
+ * Indexes: order id, customer id -> order ids, and order date -> order ids in a
+ * skip list so period queries only touch orders inside the range. Stored orders
+ * are copies and are replaced, never mutated, on update.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private final ConcurrentHashMap<Integer, Order> orders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> byCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<Integer>> byDate = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private static Order copy(Order o) {
+        return new Order(o.getId(), o.getCustomerId(), o.getOrderDate(), o.getStatus(), o.getTotalAmount(),
+                o.getBillingAddress());
+    }
+
+    @Override
+    public int insert(Order order) {
+        int id = nextId.getAndIncrement();
+        Order stored = copy(order);
+        stored.setId(id);
+        orders.put(id, stored);
+
+        byCustomer.computeIfAbsent(stored.getCustomerId(), k -> new ConcurrentSkipListSet<>()).add(id);
+        byDate.computeIfAbsent(stored.getOrderDate(), k -> new ConcurrentSkipListSet<>()).add(id);
+        return id;
+    }
+
+    @Override
+    public Order findById(int orderId) {
+        Order order = orders.get(orderId);
+        return order == null ? null : copy(order);
+    }
+
+    @Override
+    public List<Order> findByCustomer(int customerId) {
+        List<Order> list = new ArrayList<>();
+        for (int id : byCustomer.getOrDefault(customerId, Set.of())) {
+            Order order = orders.get(id);
+            if (order != null)
+                list.add(copy(order));
+        }
+        list.sort(Comparator.comparingLong(Order::getOrderDate).reversed());
+        return list;
+    }
+
+    @Override
+    public List<Integer> findCustomersWithOrders() {
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> e : byCustomer.entrySet()) {
+            if (!e.getValue().isEmpty())
+                ids.add(e.getKey());
+        }
+        ids.sort(Integer::compare);
+        return ids;
+    }
+
+    @Override
+    public void forEachInPeriod(long start, long end, Consumer<Order> action) {
+        for (Set<Integer> ids : byDate.subMap(start, true, end, true).values()) {
+            for (int id : ids) {
+                Order order = orders.get(id);
+                if (order != null)
+                    action.accept(copy(order));
+            }
+        }
+    }
+
+    @Override
+    public void updateStatus(int orderId, OrderStatus status) {
+        orders.computeIfPresent(orderId, (id, old) -> {
+            Order updated = copy(old);
+            updated.setStatus(status);
+            return updated;
+        });
+    }
+
+    @Override
+    public void updateBillingAddress(int orderId, String billingAddress) {
+        orders.computeIfPresent(orderId, (id, old) -> {
+            Order updated = copy(old);
+            updated.setBillingAddress(billingAddress);
+            return updated;
+        });
+    }
+
+    @Override
+    public void updateTotal(int orderId, double totalAmount) {
+        orders.computeIfPresent(orderId, (id, old) -> {
+            Order updated = copy(old);
+            updated.setTotalAmount(totalAmount);
+            return updated;
+        });
+    }
+
+    @Override
+    public double computeTotalSales(long start, long end) {
+        double[] total = { 0.0 };
+        forEachInPeriod(start, end, o -> {
+            if (o.getStatus() != OrderStatus.CANCELED)
+                total[0] += o.getTotalAmount();
+        });
+        return total[0];
+    }
+
+    @Override
+    public int countOrders(long start, long end) {
+        int[] count = { 0 };
+        forEachInPeriod(start, end, o -> {
+            if (o.getStatus() != OrderStatus.CANCELED)
+                count[0]++;
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,98 @@
+package com.repository;
+
+import com.entities.PaymentCard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PaymentCardRepository kept entirely in memory, indexed by card id and user id.
+ * Card numbers are masked on insert exactly as in SQLitePaymentCardRepository.
+ */
+public class InMemoryPaymentCardRepository implements PaymentCardRepository {
+
+    private final ConcurrentHashMap<Integer, PaymentCard> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> byUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> defaultCardByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private PaymentCard view(PaymentCard c) {
+        boolean isDefault = Integer.valueOf(c.getId()).equals(defaultCardByUser.get(c.getUserId()));
+        return new PaymentCard(c.getId(), c.getUserId(), c.getCardType(), c.getMaskedCardNumber(),
+                c.getExpiryDate(), c.getCardHolderName(), isDefault);
+    }
+
+    @Override
+    public PaymentCard findById(int id) {
+        PaymentCard c = byId.get(id);
+        return c == null ? null : view(c);
+    }
+
+    @Override
+    public List<PaymentCard> findByUserId(int userId) {
+        List<PaymentCard> list = new ArrayList<>();
+        for (int id : byUser.getOrDefault(userId, Set.of())) {
+            PaymentCard c = byId.get(id);
+            if (c != null)
+                list.add(view(c));
+        }
+        // Newest first, like ORDER BY created_at DESC
+        list.sort(Comparator.comparingInt(PaymentCard::getId).reversed());
+        return list;
+    }
+
+    @Override
+    public void insert(PaymentCard card) {
+        int id = nextId.getAndIncrement();
+        PaymentCard stored = new PaymentCard(id, card.getUserId(), card.getCardType(),
+                SQLitePaymentCardRepository.maskCardNumber(card.getMaskedCardNumber()),
+                card.getExpiryDate(), card.getCardHolderName(), false);
+
+        byId.put(id, stored);
+        byUser.computeIfAbsent(stored.getUserId(), k -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    @Override
+    public void update(PaymentCard card) {
+        byId.computeIfPresent(card.getId(), (id, old) -> new PaymentCard(id, old.getUserId(), card.getCardType(),
+                old.getMaskedCardNumber(), card.getExpiryDate(), card.getCardHolderName(), false));
+    }
+
+    @Override
+    public void delete(int id) {
+        PaymentCard old = byId.remove(id);
+        if (old != null) {
+            Set<Integer> ids = byUser.get(old.getUserId());
+            if (ids != null)
+                ids.remove(id);
+            defaultCardByUser.remove(old.getUserId(), id);
+        }
+    }
+
+    @Override
+    public PaymentCard findDefaultCard(int userId) {
+        Integer defaultId = defaultCardByUser.get(userId);
+        if (defaultId != null && byId.containsKey(defaultId))
+            return findById(defaultId);
+
+        List<PaymentCard> cards = findByUserId(userId);
+        return cards.isEmpty() ? null : cards.get(0);
+    }
+
+    @Override
+    public void setDefaultCard(int userId, int cardId) {
+        PaymentCard c = byId.get(cardId);
+        if (c != null && c.getUserId() == userId)
+            defaultCardByUser.put(userId, cardId);
+    }
+
+    @Override
+    public boolean isCardExpired(PaymentCard card) {
+        return false;
+    }
+}
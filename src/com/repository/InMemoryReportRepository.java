@@ -0,0 +1,105 @@
+package com.repository;
+
+import com.entities.Report;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReportRepository kept entirely in memory, indexed by id and by report type.
+ */
+public class InMemoryReportRepository implements ReportRepository {
+
+    private static final Comparator<Report> NEWEST_FIRST = Comparator.comparingLong(Report::getDateGenerated)
+            .reversed();
+
+    private final ConcurrentHashMap<Integer, Report> byId = new ConcurrentHashMap<>();
+    private final Map<Report.ReportType, Set<Integer>> byType = new EnumMap<>(Report.ReportType.class);
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    public InMemoryReportRepository() {
+        for (Report.ReportType type : Report.ReportType.values())
+            byType.put(type, new ConcurrentSkipListSet<>());
+    }
+
+    private static Report copy(Report r) {
+        return new Report(r.getId(), r.getReportType(), r.getDataStart(), r.getDateGenerated(), r.getReportData());
+    }
+
+    private List<Report> collect(Iterable<Integer> ids) {
+        List<Report> list = new ArrayList<>();
+        for (int id : ids) {
+            Report r = byId.get(id);
+            if (r != null)
+                list.add(copy(r));
+        }
+        list.sort(NEWEST_FIRST);
+        return list;
+    }
+
+    @Override
+    public Report findById(int id) {
+        Report r = byId.get(id);
+        return r == null ? null : copy(r);
+    }
+
+    @Override
+    public List<Report> findByType(Report.ReportType type) {
+        return collect(byType.get(type));
+    }
+
+    @Override
+    public List<Report> findAll() {
+        return collect(byId.keySet());
+    }
+
+    @Override
+    public List<Report> findByDateRange(long startDate, long endDate) {
+        List<Report> list = new ArrayList<>();
+        for (Report r : byId.values()) {
+            if (r.getDataStart() >= startDate && r.getDataStart() <= endDate)
+                list.add(copy(r));
+        }
+        list.sort(NEWEST_FIRST);
+        return list;
+    }
+
+    @Override
+    public void insert(Report report) {
+        int id = nextId.getAndIncrement();
+        report.setId(id);
+        byId.put(id, copy(report));
+        byType.get(report.getReportType()).add(id);
+    }
+
+    @Override
+    public void update(Report report) {
+        Report old = byId.get(report.getId());
+        if (old == null)
+            return;
+
+        byType.get(old.getReportType()).remove(old.getId());
+        byId.put(report.getId(), copy(report));
+        byType.get(report.getReportType()).add(report.getId());
+    }
+
+    @Override
+    public void delete(int id) {
+        Report old = byId.remove(id);
+        if (old != null)
+            byType.get(old.getReportType()).remove(id);
+    }
+
+    @Override
+    public Report findLatestByType(Report.ReportType type) {
+        List<Report> reports = findByType(type);
+        return reports.isEmpty() ? null : reports.get(0);
+    }
+}
@@ -0,0 +1,149 @@
+package com.repository;
+
+import com.entities.User;
+import com.services.AuthenticationService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UserRepository kept entirely in memory.
+ *
+ * Lookups by id, username and email each have their own ConcurrentHashMap, so
+ * logins never block. Writes are rare and synchronized so the three indexes and
+ * the UNIQUE(username) / UNIQUE(email) rules stay consistent.
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final AuthenticationService auth;
+
+    private final ConcurrentHashMap<Integer, User> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> byUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> byEmail = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    public InMemoryUserRepository(AuthenticationService auth) {
+        this.auth = auth;
+    }
+
+    private static User copy(User u) {
+        return new User.Builder()
+                .setId(u.getId())
+                .setUsername(u.getUsername())
+                .setEmail(u.getEmail())
+                .setHashedPassword(u.getPassword())
+                .setRole(u.getRole())
+                .setPhoneNumber(u.getPhoneNumber())
+                .setAddress(u.getAddress())
+                .build();
+    }
+
+    private static User copyOrNull(User u) {
+        return u == null ? null : copy(u);
+    }
+
+    @Override
+    public User findById(int id) {
+        return copyOrNull(byId.get(id));
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        return username == null ? null : copyOrNull(byUsername.get(username));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return email == null ? null : copyOrNull(byEmail.get(email));
+    }
+
+    @Override
+    public User findByUsernameOrEmail(String identifier) {
+        User u = findByUsername(identifier);
+        return u != null ? u : findByEmail(identifier);
+    }
+
+    @Override
+    public synchronized int insert(User u) {
+        if (u.getUsername() == null || u.getEmail() == null || u.getPassword() == null)
+            return -1;
+        if (byUsername.containsKey(u.getUsername()) || byEmail.containsKey(u.getEmail()))
+            return -1;
+
+        User stored = copy(u);
+        stored.setId(nextId.getAndIncrement());
+        index(stored);
+        return stored.getId();
+    }
+
+    @Override
+    public synchronized void update(User u) {
+        User old = byId.get(u.getId());
+        if (old == null)
+            return;
+
+        // Respect the UNIQUE constraints against other users
+        User sameName = byUsername.get(u.getUsername());
+        User sameEmail = byEmail.get(u.getEmail());
+        if ((sameName != null && sameName.getId() != u.getId()) || (sameEmail != null && sameEmail.getId() != u.getId()))
+            return;
+
+        unindex(old);
+        index(copy(u));
+    }
+
+    @Override
+    public synchronized void delete(int id) {
+        User old = byId.get(id);
+        if (old != null)
+            unindex(old);
+    }
+
+    private void index(User u) {
+        byId.put(u.getId(), u);
+        byUsername.put(u.getUsername(), u);
+        byEmail.put(u.getEmail(), u);
+    }
+
+    private void unindex(User u) {
+        byId.remove(u.getId());
+        byUsername.remove(u.getUsername());
+        byEmail.remove(u.getEmail());
+    }
+
+    @Override
+    public List<User> findStaffAndAdmins() {
+        List<User> list = new ArrayList<>();
+        for (User u : byId.values()) {
+            if (u.getRole() == User.Role.STAFF || u.getRole() == User.Role.CEO)
+                list.add(copy(u));
+        }
+        list.sort(Comparator.comparingInt(User::getId));
+        return list;
+    }
+
+    @Override
+    public User validateCredentials(String usernameOrEmail, String rawPassword) {
+        User u = findByUsernameOrEmail(usernameOrEmail);
+        if (u == null)
+            return null;
+
+        if (!auth.verifyPassword(rawPassword, u.getPassword()))
+            return null;
+
+        return u;
+    }
+
+    @Override
+    public boolean existsUsername(String username) {
+        return username != null && byUsername.containsKey(username);
+    }
+
+    @Override
+    public boolean existsEmail(String email) {
+        return email != null && byEmail.containsKey(email);
+    }
+}
@@ -0,0 +1,110 @@
+package com.repository;
+
+import com.entities.Wishlist;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WishlistRepository kept entirely in memory.
+ *
+ * Entries are indexed by id and by customer -> (item -> entry); the nested
+ * map's putIfAbsent enforces UNIQUE(customer_id, item_id) like the table does.
+ */
+public class InMemoryWishlistRepository implements WishlistRepository {
+
+    private final ConcurrentHashMap<Integer, Wishlist> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Map<Integer, Wishlist>> byCustomer = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private static Wishlist copy(Wishlist w) {
+        return new Wishlist(w.getId(), w.getCustomerId(), w.getItemId(), w.getQuantity(), w.getAddedAt());
+    }
+
+    private Map<Integer, Wishlist> customerEntries(int customerId) {
+        return byCustomer.computeIfAbsent(customerId, k -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public Wishlist findById(int id) {
+        Wishlist w = byId.get(id);
+        return w == null ? null : copy(w);
+    }
+
+    @Override
+    public List<Wishlist> findByCustomerId(int customerId) {
+        List<Wishlist> list = new ArrayList<>();
+        Map<Integer, Wishlist> entries = byCustomer.get(customerId);
+        if (entries != null) {
+            for (Wishlist w : entries.values())
+                list.add(copy(w));
+        }
+        list.sort(Comparator.comparingLong(Wishlist::getAddedAt).reversed());
+        return list;
+    }
+
+    @Override
+    public Wishlist findByCustomerAndItem(int customerId, int itemId) {
+        Map<Integer, Wishlist> entries = byCustomer.get(customerId);
+        Wishlist w = entries == null ? null : entries.get(itemId);
+        return w == null ? null : copy(w);
+    }
+
+    @Override
+    public void insert(Wishlist wishlist) {
+        Wishlist stored = copy(wishlist);
+        stored.setId(nextId.getAndIncrement());
+
+        if (customerEntries(stored.getCustomerId()).putIfAbsent(stored.getItemId(), stored) != null) {
+            // Duplicate (customer, item): same outcome as a failed insert
+            wishlist.setId(-1);
+            return;
+        }
+
+        byId.put(stored.getId(), stored);
+        wishlist.setId(stored.getId());
+    }
+
+    @Override
+    public void update(Wishlist wishlist) {
+        Wishlist old = byId.get(wishlist.getId());
+        if (old == null)
+            return;
+
+        Wishlist updated = copy(old);
+        updated.setQuantity(wishlist.getQuantity());
+        updated.setAddedAt(wishlist.getAddedAt());
+
+        byId.put(updated.getId(), updated);
+        customerEntries(updated.getCustomerId()).put(updated.getItemId(), updated);
+    }
+
+    @Override
+    public void delete(int id) {
+        Wishlist old = byId.remove(id);
+        if (old != null) {
+            Map<Integer, Wishlist> entries = byCustomer.get(old.getCustomerId());
+            if (entries != null)
+                entries.remove(old.getItemId(), old);
+        }
+    }
+
+    /** Every (customerId, itemId) entry, for InMemoryInteractionRepository */
+    void forEachEntry(InteractionRepository.PairConsumer action) {
+        for (Wishlist w : byId.values())
+            action.accept(w.getCustomerId(), w.getItemId());
+    }
+
+    @Override
+    public void deleteAllByCustomer(int customerId) {
+        Map<Integer, Wishlist> entries = byCustomer.remove(customerId);
+        if (entries != null) {
+            for (Wishlist w : entries.values())
+                byId.remove(w.getId());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.repository;
+
+import java.util.Arrays;
+
+/**
+ * Map from int to int without boxing: open addressing with linear probing in
+ * two parallel arrays, resized at half full. Used for the rows of the item
+ * co-occurrence matrix, where millions of small maps would otherwise hold an
+ * Integer pair and a node per entry.
+ *
+ * Integer.MIN_VALUE marks a free slot and cannot be used as a key. There is no
+ * removal. Not thread-safe; callers lock.
+ */
+final class IntIntHashMap {
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(2, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    IntIntHashMap() {
+        this(1);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != FREE && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    int get(int key) {
+        int i = slot(key);
+        return keys[i] == FREE ? 0 : values[i];
+    }
+
+    boolean containsKey(int key) {
+        return keys[slot(key)] != FREE;
+    }
+
+    /** Add delta to key's value (0 if absent); returns the new value */
+    int addTo(int key, int delta) {
+        int i = slot(key);
+        if (keys[i] == FREE) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                i = slot(key);
+            }
+            keys[i] = key;
+            size++;
+        }
+        return values[i] += delta;
+    }
+
+    /** Put key with value 1 unless present; true if it was added */
+    boolean add(int key) {
+        if (containsKey(key))
+            return false;
+        addTo(key, 1);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE)
+                action.accept(keys[i], values[i]);
+        }
+    }
+
+    /** The keys, in no particular order */
+    int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != FREE)
+                result[n++] = key;
+        }
+        return result;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
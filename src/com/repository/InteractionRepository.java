@@ -0,0 +1,20 @@
+package com.repository;
+
+/**
+ * The (customer, item) pairs that show a customer's interest in an item:
+ * likes, wishlist entries and the lines of orders that were not canceled.
+ * Read in bulk to build the item co-occurrence matrix.
+ */
+public interface InteractionRepository {
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(int customerId, int itemId);
+    }
+
+    /**
+     * Call action for every pair. A pair can come more than once (liked and
+     * bought). Returns the number of pairs read, or -1 if reading failed.
+     */
+    int forEachInteraction(PairConsumer action);
+}
@@ -0,0 +1,314 @@
+package com.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item-to-item "customers who liked this also liked" neighbours.
+ *
+ * A sparse co-occurrence matrix counts, for every two items, the customers
+ * who showed interest in both (liked, wishlisted or bought them). Rows are
+ * IntIntHashMaps keyed by the other item. A neighbour's score is the cosine
+ * of the two items' customer sets: co-occurrences / sqrt(customers of a *
+ * customers of b). Each item's best MAX_NEIGHBOURS are computed from its row
+ * on first request and cached until that row changes.
+ *
+ * add() is incremental: a customer's new item is counted against each item
+ * they already had, in O(items of that customer). Only a customer's first
+ * maxItemsPerCustomer items are counted, which bounds both that cost and the
+ * matrix (at most maxItemsPerCustomer^2 entries per customer). Pairs are never
+ * removed; a rebuild drops interest that is gone (unliked, canceled).
+ *
+ * rebuild() recomputes everything from an InteractionRepository. Rows are
+ * split by item across a fork/join pool, so each task owns its rows and no
+ * counts need merging; baskets are bucketed by partition first, so each task
+ * reads only the baskets holding one of its items. Pairs added while it runs are replayed into the new
+ * matrix before it replaces the old one. Writers take the write lock;
+ * lookups share the read lock.
+ */
+public class ItemCoOccurrenceIndex {
+
+    /** Neighbours cached per item, and so the most neighbours() can return */
+    public static final int MAX_NEIGHBOURS = 20;
+    public static final int DEFAULT_MAX_ITEMS_PER_CUSTOMER = 50;
+
+    private static final int[] NONE = new int[0];
+
+    private final int maxItemsPerCustomer;
+
+    // item -> (other item -> customers interested in both)
+    private Map<Integer, IntIntHashMap> rows = new HashMap<>();
+    // item -> customers interested in it
+    private IntIntHashMap customerCounts = new IntIntHashMap();
+    // customer -> items counted for them
+    private Map<Integer, IntIntHashMap> customers = new HashMap<>();
+    // item -> best neighbours, best first; removed when the item's row changes
+    private final ConcurrentHashMap<Integer, int[]> neighbourCache = new ConcurrentHashMap<>();
+    // (customer, item) pairs added while a rebuild runs; null otherwise
+    private List<long[]> pending;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemCoOccurrenceIndex(int maxItemsPerCustomer) {
+        this.maxItemsPerCustomer = Math.max(2, maxItemsPerCustomer);
+    }
+
+    public ItemCoOccurrenceIndex() {
+        this(Integer.getInteger("mall.recommendations.maxItemsPerCustomer", DEFAULT_MAX_ITEMS_PER_CUSTOMER));
+    }
+
+    // ===== WRITES =====
+
+    /** Count customerId's interest in itemId; false if it was already counted (or over the cap) */
+    public boolean add(int customerId, int itemId) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null)
+                pending.add(new long[] { customerId, itemId });
+            return addLocked(customerId, itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean addLocked(int customerId, int itemId) {
+        IntIntHashMap items = customers.computeIfAbsent(customerId, c -> new IntIntHashMap());
+        if (items.size() >= maxItemsPerCustomer || !items.add(itemId))
+            return false;
+
+        customerCounts.addTo(itemId, 1);
+        if (items.size() == 1)
+            return true;
+        IntIntHashMap row = rows.computeIfAbsent(itemId, i -> new IntIntHashMap());
+        for (int other : items.keys()) {
+            if (other == itemId)
+                continue;
+            row.addTo(other, 1);
+            rows.computeIfAbsent(other, i -> new IntIntHashMap()).addTo(itemId, 1);
+            neighbourCache.remove(other);
+        }
+        neighbourCache.remove(itemId);
+        return true;
+    }
+
+    /**
+     * Replace everything with the pairs of source, computing the rows in
+     * parallel on pool. If source fails the current matrix is kept; returns
+     * the number of pairs read, or -1.
+     */
+    public int rebuild(InteractionRepository source, ForkJoinPool pool) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, IntIntHashMap> newCustomers = new HashMap<>();
+        Map<Integer, IntIntHashMap> newRows = new HashMap<>();
+        IntIntHashMap newCounts = new IntIntHashMap();
+        int read = -1;
+        try {
+            read = source.forEachInteraction((customerId, itemId) -> {
+                IntIntHashMap items = newCustomers.computeIfAbsent(customerId, c -> new IntIntHashMap());
+                if (items.size() < maxItemsPerCustomer)
+                    items.add(itemId);
+            });
+            if (read >= 0) {
+                List<int[]> baskets = new ArrayList<>(newCustomers.size());
+                for (IntIntHashMap items : newCustomers.values()) {
+                    int[] basket = items.keys();
+                    baskets.add(basket);
+                    for (int item : basket)
+                        newCounts.addTo(item, 1);
+                }
+
+                int partitions = Math.max(1, pool.getParallelism() * 4);
+                int[][] buckets = bucketByPartition(baskets, partitions);
+                List<Map<Integer, IntIntHashMap>> parts = new ArrayList<>(Collections.nCopies(partitions, null));
+                pool.invoke(new RowTask(baskets, buckets, parts, 0, partitions));
+                for (Map<Integer, IntIntHashMap> part : parts)
+                    newRows.putAll(part);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                List<long[]> added = pending;
+                pending = null;
+                if (read >= 0) {
+                    rows = newRows;
+                    customerCounts = newCounts;
+                    customers = newCustomers;
+                    neighbourCache.clear();
+                    for (long[] pair : added)
+                        addLocked((int) pair[0], (int) pair[1]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return read;
+    }
+
+    /**
+     * For each partition, the indexes of the baskets (of two or more items)
+     * holding at least one item of it, each basket once. Two passes over the
+     * baskets: count, then fill.
+     */
+    private static int[][] bucketByPartition(List<int[]> baskets, int partitions) {
+        int[] sizes = new int[partitions];
+        int[] last = new int[partitions];
+        Arrays.fill(last, -1);
+        for (int b = 0; b < baskets.size(); b++) {
+            int[] basket = baskets.get(b);
+            if (basket.length < 2)
+                continue;
+            for (int item : basket) {
+                int p = Math.floorMod(item, partitions);
+                if (last[p] != b) {
+                    last[p] = b;
+                    sizes[p]++;
+                }
+            }
+        }
+
+        int[][] buckets = new int[partitions][];
+        for (int p = 0; p < partitions; p++)
+            buckets[p] = new int[sizes[p]];
+        Arrays.fill(sizes, 0);
+        Arrays.fill(last, -1);
+        for (int b = 0; b < baskets.size(); b++) {
+            int[] basket = baskets.get(b);
+            if (basket.length < 2)
+                continue;
+            for (int item : basket) {
+                int p = Math.floorMod(item, partitions);
+                if (last[p] != b) {
+                    last[p] = b;
+                    buckets[p][sizes[p]++] = b;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /** Rows of the items whose partition lies in [from, to); splits down to one partition per task */
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized; ForkJoinTask is Serializable only by inheritance
+        private final transient List<int[]> baskets;
+        private final int[][] buckets;
+        private final transient List<Map<Integer, IntIntHashMap>> parts;
+        private final int from;
+        private final int to;
+
+        RowTask(List<int[]> baskets, int[][] buckets, List<Map<Integer, IntIntHashMap>> parts, int from, int to) {
+            this.baskets = baskets;
+            this.buckets = buckets;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(baskets, buckets, parts, from, mid),
+                        new RowTask(baskets, buckets, parts, mid, to));
+                return;
+            }
+
+            // Only the baskets bucketed here, and only the rows of this partition's items
+            Map<Integer, IntIntHashMap> rows = new HashMap<>();
+            for (int b : buckets[from]) {
+                int[] basket = baskets.get(b);
+                for (int item : basket) {
+                    if (Math.floorMod(item, parts.size()) != from)
+                        continue;
+                    IntIntHashMap row = rows.computeIfAbsent(item, i -> new IntIntHashMap(basket.length));
+                    for (int other : basket) {
+                        if (other != item)
+                            row.addTo(other, 1);
+                    }
+                }
+            }
+            parts.set(from, rows);
+        }
+    }
+
+    // ===== LOOKUP =====
+
+    /** Up to limit (at most MAX_NEIGHBOURS) item ids most often chosen with itemId, best first */
+    public int[] neighbours(int itemId, int limit) {
+        if (limit <= 0)
+            return NONE;
+
+        int[] cached = neighbourCache.get(itemId);
+        if (cached == null) {
+            lock.readLock().lock();
+            try {
+                cached = computeNeighbours(itemId);
+                // Stored under the read lock, so a writer's removal cannot come before it
+                neighbourCache.put(itemId, cached);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return Arrays.copyOf(cached, Math.min(limit, cached.length));
+    }
+
+    private int[] computeNeighbours(int itemId) {
+        IntIntHashMap row = rows.get(itemId);
+        if (row == null)
+            return NONE;
+
+        double own = customerCounts.get(itemId);
+        int[] top = new int[Math.min(MAX_NEIGHBOURS, row.size())];
+        double[] scores = new double[top.length];
+        int[] size = { 0 };
+        row.forEach((other, together) -> {
+            double score = together / Math.sqrt(own * Math.max(1, customerCounts.get(other)));
+            int at = size[0];
+            if (at == top.length) {
+                if (!before(score, other, scores[at - 1], top[at - 1]))
+                    return;
+                at--;
+            } else {
+                size[0]++;
+            }
+            while (at > 0 && before(score, other, scores[at - 1], top[at - 1])) {
+                top[at] = top[at - 1];
+                scores[at] = scores[at - 1];
+                at--;
+            }
+            top[at] = other;
+            scores[at] = score;
+        });
+        return top;
+    }
+
+    /** Higher score first, then lower id so the order is stable */
+    private static boolean before(double scoreA, int idA, double scoreB, int idB) {
+        return scoreA != scoreB ? scoreA > scoreB : idA < idB;
+    }
+
+    /** Items with at least one neighbour */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
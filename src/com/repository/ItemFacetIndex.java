@@ -0,0 +1,96 @@
+package com.repository;
+
+import com.common.dto.item.ItemFacets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item counts per (category, price bucket), kept current on every item insert,
+ * update and delete so facets never need a GROUP BY over the catalog.
+ *
+ * The facet of each item is remembered by id, which makes put and remove
+ * idempotent: applying the same change twice (e.g. once from a load scan and
+ * once from the write itself) leaves the counts right. Reading facets costs
+ * O(categories x buckets).
+ */
+final class ItemFacetIndex {
+
+    private record Facet(String category, int bucket) {
+    }
+
+    private static final int BUCKETS = ItemFacets.PRICE_BUCKET_BOUNDS.length;
+
+    private final Map<Integer, Facet> byItem = new HashMap<>();
+    // Null category is counted under the null key (price buckets only)
+    private final Map<String, long[]> counts = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(int itemId, String category, double price) {
+        Facet facet = new Facet(category, ItemFacets.priceBucket(price));
+        lock.writeLock().lock();
+        try {
+            Facet old = byItem.put(itemId, facet);
+            if (facet.equals(old))
+                return;
+            if (old != null)
+                adjust(old, -1);
+            adjust(facet, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            Facet old = byItem.remove(itemId);
+            if (old != null)
+                adjust(old, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void adjust(Facet facet, int delta) {
+        long[] row = counts.computeIfAbsent(facet.category(), c -> new long[BUCKETS]);
+        row[facet.bucket()] += delta;
+    }
+
+    /**
+     * Category counts over the whole catalog; price buckets over category, or
+     * over everything when category is null.
+     */
+    ItemFacets facets(String category) {
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        long[] buckets = new long[BUCKETS];
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<String, Long>> totals = new ArrayList<>();
+            for (Map.Entry<String, long[]> e : counts.entrySet()) {
+                long total = 0;
+                for (int b = 0; b < BUCKETS; b++) {
+                    total += e.getValue()[b];
+                    if (category == null || category.equals(e.getKey()))
+                        buckets[b] += e.getValue()[b];
+                }
+                if (e.getKey() != null && total > 0)
+                    totals.add(Map.entry(e.getKey(), total));
+            }
+            totals.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            for (Map.Entry<String, Long> t : totals)
+                categories.put(t.getKey(), t.getValue().intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new ItemFacets(categories, ItemFacets.labelBuckets(buckets));
+    }
+}
@@ -5,9 +5,26 @@ import java.util.List;
 
 public interface ItemRankingRepository {
 
+    /** Size of the ranking returned by findAll */
+    int DEFAULT_TOP = 10;
+
     /** Delete old ranking and insert new ranking list */
     void replaceAll(List<ItemRanking> ranking);
 
-    /** Get all ranking records */
+    /** Get the top DEFAULT_TOP ranking records */
     List<ItemRanking> findAll();
-}
\ No newline at end of file
+
+    /** The k most liked items, most liked first, ranked from 1 */
+    List<ItemRanking> top(int k);
+
+    /** Add an item or set its name and like count */
+    void put(int itemId, String itemName, int likeCount);
+
+    /** Set an item's name and keep its live like count; unknown items are added with likeCount */
+    void rename(int itemId, String itemName, int likeCount);
+
+    /** Add delta to the like count of a ranked item; ignored for unknown items */
+    void addLikes(int itemId, int delta);
+
+    void remove(int itemId);
+}
@@ -1,40 +1,123 @@
 package com.repository;
 
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
 import com.entities.Item;
 import com.entities.ItemRanking;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemRepository {
 
+    /** Result cap for searchByKeyword */
+    int DEFAULT_SEARCH_LIMIT = 100;
+
     // ===== CRUD =====
     Item findById(int id);
 
+    /** Items with the given ids, keyed by id; ids that do not exist are left out */
+    Map<Integer, Item> findByIds(Collection<Integer> ids);
+
     List<Item> findAll();
 
+    /** Visit every item without loading the whole catalog into memory */
+    void forEach(Consumer<Item> action);
+
+    /**
+     * Keyset pagination: up to limit items in sort order, starting after the
+     * position (afterKey, afterId) of the last item seen. afterId null means the
+     * first page. afterKey is that item's like count or price (its sort value);
+     * NEWEST ignores it. Items come back with the values they were ordered by
+     * (a repository that buffers likes leaves unflushed ones out), so the last
+     * item's like count or price is always a valid afterKey.
+     */
+    default List<Item> findPage(ItemSort sort, Double afterKey, Integer afterId, int limit) {
+        return findPage(null, sort, afterKey, afterId, limit);
+    }
+
+    /** findPage over the items matching filter only; a null filter matches everything */
+    List<Item> findPage(ItemFilter filter, ItemSort sort, Double afterKey, Integer afterId, int limit);
+
     int insert(Item item);
 
+    /**
+     * Save name, description, category and price. Stock only changes through
+     * the stock methods below (so an edit cannot undo concurrent checkouts) and
+     * like counts only through likes.
+     */
     void update(Item item);
 
     void delete(int id);
 
     // ===== SEARCH =====
+    /** search(keyword, DEFAULT_SEARCH_LIMIT) */
     List<Item> searchByKeyword(String keyword);
 
+    /**
+     * Full-text search over name and description. Every word of the query must
+     * match, each as a word prefix; results come best match first (BM25, name
+     * weighted above description), at most limit of them.
+     */
+    default List<Item> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /** search restricted to the items matching filter; a null filter matches everything */
+    List<Item> search(String query, ItemFilter filter, int limit);
+
+    /**
+     * query with each word that matches no indexed term replaced by the most
+     * common term one typo away (a letter inserted, missing, wrong, or two
+     * letters swapped), for retrying a search that found nothing. Words under
+     * four letters or with digits are left alone. Null if nothing was corrected.
+     */
+    String correctQuery(String query);
+
+    // ===== FACETS =====
+    /**
+     * Item counts per category and per price bucket, maintained on every write
+     * rather than counted per request. Price buckets cover only category when
+     * it is not null.
+     */
+    ItemFacets facets(String category);
+
     // ===== LIKE SYSTEM =====
     boolean existsLike(int userId, int itemId);
 
-    void insertLike(int userId, int itemId);
+    /**
+     * Record that userId likes itemId and count it, unless that like already
+     * exists. Returns true if the like is new. The count may reach storage later
+     * than the like itself; reads by id, list and search include it right away,
+     * but findPage reports the stored count (see there).
+     */
+    boolean insertLike(int userId, int itemId);
 
     void incrementLikeCount(int itemId);
 
     // ===== STOCK =====
+    /**
+     * Items with at most threshold units left, fewest first (ties by id), at
+     * most limit of them. Read from a stock index, not a scan of the catalog.
+     */
+    List<Item> findLowStock(int threshold, int limit);
+
     void updateStock(int itemId, int newStock);
 
     void increaseStock(int itemId, int amount);
 
     void decreaseStock(int itemId, int amount);
 
+    /**
+     * Take amount units of itemId in one atomic step, only if at least amount
+     * are left. False (and nothing changed) if there is not enough stock or no
+     * such item.
+     */
+    boolean tryDecreaseStock(int itemId, int amount);
+
     // ===== RANKING =====
     List<ItemRanking> computeRanking();
 }
\ No newline at end of file
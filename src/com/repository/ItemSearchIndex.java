@@ -0,0 +1,207 @@
+package com.repository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory inverted index over item name and description, the in-memory
+ * counterpart of the items_fts table.
+ *
+ * Tokenization matches FTS5's unicode61 tokenizer (lowercase, diacritics
+ * removed, split on anything that is not a letter or digit). Every query word
+ * matches as a prefix and all words must match. Results are ranked with BM25,
+ * with name matches weighted like bm25(items_fts, 10.0, 1.0).
+ *
+ * Terms live in a sorted map so a prefix is a subMap range. Writers take the
+ * write lock; searches share the read lock. The vocabulary is mirrored in a
+ * FuzzyTermIndex (with item counts) for correcting misspelled queries.
+ */
+final class ItemSearchIndex {
+
+    static final double NAME_WEIGHT = 10.0;
+    static final double DESCRIPTION_WEIGHT = 1.0;
+
+    // Standard BM25 parameters (the FTS5 defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Weighted term frequency of one term in one item */
+    private final NavigableMap<String, Map<Integer, Double>> postings = new TreeMap<>();
+    /** Terms of each item, to unindex it on update and delete */
+    private final Map<Integer, Map<String, Double>> documents = new HashMap<>();
+    /** Weighted token count of each item */
+    private final Map<Integer, Double> lengths = new HashMap<>();
+    private double totalLength;
+
+    private final FuzzyTermIndex vocabulary = new FuzzyTermIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Split text the way FTS5's unicode61 tokenizer does */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank())
+            return tokens;
+
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty())
+                tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /** FTS5 MATCH expression for a user query: every word quoted and matched as a prefix */
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String token : tokenize(query)) {
+            if (match.length() > 0)
+                match.append(' ');
+            match.append('"').append(token).append("\"*");
+        }
+        return match.toString();
+    }
+
+    /** Index (or re-index) one item */
+    void put(int itemId, String name, String description) {
+        Map<String, Double> terms = new HashMap<>();
+        double length = 0;
+        for (String token : tokenize(name)) {
+            terms.merge(token, NAME_WEIGHT, Double::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String token : tokenize(description)) {
+            terms.merge(token, DESCRIPTION_WEIGHT, Double::sum);
+            length += DESCRIPTION_WEIGHT;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+            for (Map.Entry<String, Double> e : terms.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(itemId, e.getValue());
+                vocabulary.add(e.getKey(), 1);
+            }
+            documents.put(itemId, terms);
+            lengths.put(itemId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int itemId) {
+        Map<String, Double> terms = documents.remove(itemId);
+        if (terms == null)
+            return;
+
+        for (String term : terms.keySet()) {
+            vocabulary.add(term, -1);
+            Map<Integer, Double> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(itemId);
+                if (docs.isEmpty())
+                    postings.remove(term);
+            }
+        }
+        totalLength -= lengths.remove(itemId);
+    }
+
+    /** See ItemRepository.correctQuery */
+    String correctQuery(String query) {
+        return vocabulary.correct(tokenize(query));
+    }
+
+    /** Ids of the best matches, best first; empty for a query without words */
+    List<Integer> search(String query, int limit) {
+        return search(query, id -> true, limit);
+    }
+
+    /**
+     * Like search(query, limit), counting only items accepted by filter. The
+     * filter runs before the top-k cut, so a narrow filter still fills the page.
+     */
+    List<Integer> search(String query, IntPredicate filter, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0)
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 1 : Math.max(totalLength / docCount, 1e-9);
+
+            // Items matching every word so far, with their accumulated score
+            Map<Integer, Double> scores = null;
+            for (String word : words) {
+                Map<Integer, Double> wordScores = new HashMap<>();
+                // All indexed terms starting with word
+                for (Map.Entry<String, Map<Integer, Double>> term
+                        : postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+                    Map<Integer, Double> docs = term.getValue();
+                    double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+
+                    for (Map.Entry<Integer, Double> d : docs.entrySet()) {
+                        if (scores == null ? !filter.test(d.getKey()) : !scores.containsKey(d.getKey()))
+                            continue;
+                        double tf = d.getValue();
+                        double norm = K1 * (1 - B + B * lengths.get(d.getKey()) / avgLength);
+                        wordScores.merge(d.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    }
+                }
+
+                if (scores != null) {
+                    for (Map.Entry<Integer, Double> e : wordScores.entrySet())
+                        e.setValue(e.getValue() + scores.get(e.getKey()));
+                }
+                scores = wordScores;
+                if (scores.isEmpty())
+                    return List.of();
+            }
+
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Highest scores first (ties by id) without sorting every match */
+    private static List<Integer> top(Map<Integer, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Integer.compare(b.getKey(), a.getKey())
+                        : Double.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+            heap.offer(e);
+            if (heap.size() > limit)
+                heap.poll();
+        }
+
+        List<Integer> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty())
+            ids.add(heap.poll().getKey());
+        Collections.reverse(ids);
+        return ids;
+    }
+}
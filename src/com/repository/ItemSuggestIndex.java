@@ -0,0 +1,392 @@
+package com.repository;
+
+import com.entities.ItemRanking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead completions of item names, most liked first.
+ *
+ * Names are normalized like the search index (lowercase, no diacritics, words
+ * separated by one space) and stored in a radix trie, once from each word, so
+ * "mou" finds "Wireless Mouse" as well as "Mouse Pad". Every node keeps the
+ * MAX_SUGGESTIONS best items below it, so a lookup only walks the prefix and
+ * copies that list: O(prefix length), independent of catalog size.
+ *
+ * A new like can only move an item up, which is patched into the lists along
+ * its paths; renames and removals recompute the lists on the affected paths
+ * from their children. Writers take the write lock; lookups share the read
+ * lock.
+ */
+public class ItemSuggestIndex {
+
+    /** Completions kept per trie node, and so the most suggest() can return */
+    public static final int MAX_SUGGESTIONS = 10;
+    /** Words of a name it can be completed from; later words are not indexed */
+    private static final int MAX_KEYS_PER_ITEM = 8;
+
+    private static final int[] NONE = new int[0];
+
+    private static final class Node {
+        // Label of the edge from the parent
+        String edge;
+        final Map<Character, Node> children = new HashMap<>(4);
+        // Items whose key ends exactly here
+        Set<Integer> ends;
+        // Best items in this subtree, best first, and their like counts
+        int[] top = NONE;
+        int[] topLikes = NONE;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final List<String> keys;
+        int likes;
+
+        Entry(String name, List<String> keys, int likes) {
+            this.name = name;
+            this.keys = keys;
+            this.likes = likes;
+        }
+    }
+
+    private final Node root = new Node("");
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Normalized text: tokens joined by single spaces */
+    static String normalize(String text) {
+        return String.join(" ", ItemSearchIndex.tokenize(text));
+    }
+
+    /** The name from each of its first words on */
+    private static List<String> keys(String name) {
+        List<String> tokens = ItemSearchIndex.tokenize(name);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < tokens.size() && i < MAX_KEYS_PER_ITEM; i++)
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        return new ArrayList<>(keys);
+    }
+
+    // ===== WRITES =====
+
+    /** Replace every item (startup) */
+    public void replaceAll(List<ItemRanking> items) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            root.children.clear();
+            root.ends = null;
+            root.top = NONE;
+            root.topLikes = NONE;
+            // Insert everything first, then rank every node once, bottom-up
+            for (ItemRanking item : items) {
+                Entry entry = new Entry(item.getItemName(), keys(item.getItemName()), item.getLikeCount());
+                if (entries.put(item.getItemId(), entry) != null)
+                    continue;
+                for (String key : entry.keys)
+                    addEnd(insertPath(key), item.getItemId());
+            }
+            recomputeAll(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Add an item or set its name and like count */
+    public void put(int itemId, String name, int likeCount) {
+        lock.writeLock().lock();
+        try {
+            putLocked(itemId, name, likeCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(int itemId, String name, int likeCount) {
+        Entry old = entries.get(itemId);
+        if (old != null && old.name.equals(name)) {
+            int delta = likeCount - old.likes;
+            if (delta != 0)
+                addLikesLocked(itemId, old, delta);
+            return;
+        }
+        if (old != null)
+            removeLocked(itemId, old);
+
+        Entry entry = new Entry(name, keys(name), likeCount);
+        entries.put(itemId, entry);
+        for (String key : entry.keys) {
+            List<Node> path = insertPath(key);
+            addEnd(path, itemId);
+            // The new item can only enter the lists on its path
+            for (Node node : path)
+                promote(node, itemId);
+        }
+    }
+
+    /** Set an item's name and keep its live like count; unknown items are added with likeCount */
+    public void rename(int itemId, String name, int likeCount) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.get(itemId);
+            putLocked(itemId, name, old != null ? old.likes : likeCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Add delta to the like count of an indexed item; ignored for unknown items */
+    public void addLikes(int itemId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(itemId);
+            if (entry != null && delta != 0)
+                addLikesLocked(itemId, entry, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLikesLocked(int itemId, Entry entry, int delta) {
+        entry.likes += delta;
+        for (String key : entry.keys) {
+            List<Node> path = findPath(key);
+            if (path == null)
+                continue;
+            if (delta > 0) {
+                for (Node node : path)
+                    promote(node, itemId);
+            } else {
+                // Moving down may let an item from a sibling subtree in
+                for (int i = path.size() - 1; i >= 0; i--)
+                    recompute(path.get(i));
+            }
+        }
+    }
+
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(itemId);
+            if (entry != null)
+                removeLocked(itemId, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int itemId, Entry entry) {
+        // The entry stays until the end: lists are recomputed while other keys still hold the item
+        for (String key : entry.keys) {
+            List<Node> path = findPath(key);
+            if (path == null)
+                continue;
+            Node end = path.get(path.size() - 1);
+            if (end.ends != null)
+                end.ends.remove(itemId);
+
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                // Drop nodes nothing ends at or below any more
+                if (i > 0 && node.children.isEmpty() && (node.ends == null || node.ends.isEmpty())) {
+                    path.get(i - 1).children.remove(node.edge.charAt(0));
+                    continue;
+                }
+                recompute(node);
+            }
+        }
+        entries.remove(itemId);
+    }
+
+    // ===== TRIE =====
+
+    private static void addEnd(List<Node> path, int itemId) {
+        Node end = path.get(path.size() - 1);
+        if (end.ends == null)
+            end.ends = new HashSet<>(2);
+        end.ends.add(itemId);
+    }
+
+    /** Nodes from the root to key, creating and splitting edges as needed */
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                path.add(child);
+                return path;
+            }
+
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                // Split the edge; the new middle node covers exactly what child covered
+                Node middle = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                middle.children.put(child.edge.charAt(0), child);
+                middle.top = child.top.clone();
+                middle.topLikes = child.topLikes.clone();
+                node.children.put(key.charAt(i), middle);
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        return path;
+    }
+
+    /** Nodes from the root to the node key ends at, or null if key is not in the trie */
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.edge, i))
+                return null;
+            path.add(child);
+            node = child;
+            i += child.edge.length();
+        }
+        return path;
+    }
+
+    private static int commonPrefix(String edge, String key, int from) {
+        int n = Math.min(edge.length(), key.length() - from);
+        int i = 0;
+        while (i < n && edge.charAt(i) == key.charAt(from + i))
+            i++;
+        return i;
+    }
+
+    // ===== RANKED LISTS =====
+
+    /** True if (idA, likesA) ranks before (idB, likesB): more likes, then newer (higher id) */
+    private static boolean before(int idA, int likesA, int idB, int likesB) {
+        return likesA != likesB ? likesA > likesB : idA > idB;
+    }
+
+    /** Put itemId into node's list at its place, after its likes went up (or it was added) */
+    private static void promote(Node node, int itemId, int likes) {
+        int[] top = node.top;
+        int[] topLikes = node.topLikes;
+        int at = -1;
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == itemId) {
+                at = i;
+                break;
+            }
+        }
+
+        if (at < 0) {
+            int last = top.length - 1;
+            if (top.length == MAX_SUGGESTIONS && !before(itemId, likes, top[last], topLikes[last]))
+                return;
+            int size = Math.min(top.length + 1, MAX_SUGGESTIONS);
+            top = Arrays.copyOf(top, size);
+            topLikes = Arrays.copyOf(topLikes, size);
+            at = size - 1;
+        }
+        while (at > 0 && before(itemId, likes, top[at - 1], topLikes[at - 1])) {
+            top[at] = top[at - 1];
+            topLikes[at] = topLikes[at - 1];
+            at--;
+        }
+        top[at] = itemId;
+        topLikes[at] = likes;
+        node.top = top;
+        node.topLikes = topLikes;
+    }
+
+    private void promote(Node node, int itemId) {
+        promote(node, itemId, entries.get(itemId).likes);
+    }
+
+    /** Rebuild node's list from the items ending here and the children's lists */
+    private void recompute(Node node) {
+        node.top = NONE;
+        node.topLikes = NONE;
+        if (node.ends != null) {
+            for (int id : node.ends)
+                promote(node, id);
+        }
+        for (Node child : node.children.values()) {
+            for (int i = 0; i < child.top.length; i++)
+                promote(node, child.top[i], child.topLikes[i]);
+        }
+    }
+
+    private void recomputeAll(Node node) {
+        for (Node child : node.children.values())
+            recomputeAll(child);
+        recompute(node);
+    }
+
+    // ===== LOOKUP =====
+
+    /**
+     * Up to limit (at most MAX_SUGGESTIONS) items with a word sequence starting
+     * with prefix, most liked first, ranked from 1. Empty for a blank prefix.
+     */
+    public List<ItemRanking> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0)
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null)
+                    return List.of();
+                int common = commonPrefix(child.edge, key, i);
+                // The prefix may end part way along an edge
+                if (common < child.edge.length() && i + common < key.length())
+                    return List.of();
+                node = child;
+                i += common;
+            }
+
+            int n = Math.min(limit, node.top.length);
+            List<ItemRanking> result = new ArrayList<>(n);
+            for (int r = 0; r < n; r++) {
+                int id = node.top[r];
+                Entry entry = entries.get(id);
+                result.add(new ItemRanking(id, entry.name, entry.likes, r + 1));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
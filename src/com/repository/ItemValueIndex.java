@@ -0,0 +1,56 @@
+package com.repository;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Item ids ordered by one value (price, likes, stock, ...), then by id: the
+ * in-memory counterpart of an SQLite index on (value, id).
+ *
+ * A range of values is a subSet view, so reading k items from any position
+ * costs O(log n + k). The set is a ConcurrentSkipListSet, so readers never
+ * block; callers keep it in step with the item map and serialize the updates
+ * of one item themselves.
+ */
+final class ItemValueIndex {
+
+    record Key(double value, int id) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparingDouble(Key::value)
+            .thenComparingInt(Key::id);
+
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>(ORDER);
+
+    static Key key(double value, int id) {
+        return new Key(value, id);
+    }
+
+    void add(int id, double value) {
+        keys.add(new Key(value, id));
+    }
+
+    void remove(int id, double value) {
+        keys.remove(new Key(value, id));
+    }
+
+    /** Re-key id after its value changed from oldValue to newValue */
+    void move(int id, double oldValue, double newValue) {
+        if (Double.compare(oldValue, newValue) == 0)
+            return;
+        keys.add(new Key(newValue, id));
+        keys.remove(new Key(oldValue, id));
+    }
+
+    /** Keys with min <= value <= max, ascending; a null bound is open */
+    NavigableSet<Key> between(Double min, Double max) {
+        Key low = new Key(min == null ? Double.NEGATIVE_INFINITY : min, Integer.MIN_VALUE);
+        Key high = new Key(max == null ? Double.POSITIVE_INFINITY : max, Integer.MAX_VALUE);
+        return keys.subSet(low, true, high, true);
+    }
+
+    void clear() {
+        keys.clear();
+    }
+}
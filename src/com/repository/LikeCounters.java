@@ -0,0 +1,139 @@
+package com.repository;
+
+import com.common.Database;
+import com.common.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Like-count increments held in memory and written to items.like_count in
+ * periodic batches.
+ *
+ * Each item with unflushed likes has a LongAdder, which spreads concurrent
+ * increments over cells, so a hot item under a flash campaign does not turn
+ * into one contended counter. Every flushMs (-Dmall.likes.flushMs, default
+ * 1000) the pending deltas are applied in one transaction of
+ * "like_count = like_count + ?" updates and taken off the counters inside it,
+ * while the transaction still holds the Database lock. A repository read on
+ * the shared connection (row plus pending()) therefore sees each like exactly
+ * once. If the flush fails the deltas stay pending for the next one; only
+ * while a busy transaction waits to retry can a read miss them. stop()
+ * flushes whatever is left.
+ *
+ * Only counts are deferred: the liked_item row is still inserted at once, so
+ * duplicate likes stay impossible across restarts. A crash loses at most the
+ * last interval's increments to like_count.
+ */
+public class LikeCounters {
+
+    public static final long DEFAULT_FLUSH_MS = 1000;
+
+    private static final String FLUSH_SQL = "UPDATE items SET like_count = like_count + ? WHERE id = ?";
+
+    private final Database db;
+    private final long flushMs;
+    private final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public LikeCounters(Database db, long flushMs) {
+        this.db = db;
+        this.flushMs = Math.max(1, flushMs);
+    }
+
+    public LikeCounters(Database db) {
+        this(db, Long.getLong("mall.likes.flushMs", DEFAULT_FLUSH_MS));
+    }
+
+    public void increment(int itemId) {
+        pending.computeIfAbsent(itemId, id -> new LongAdder()).increment();
+    }
+
+    /** Likes of itemId not yet written to like_count */
+    public int pending(int itemId) {
+        LongAdder adder = pending.get(itemId);
+        return adder == null ? 0 : (int) adder.sum();
+    }
+
+    /** Forget pending likes of a deleted item */
+    public void discard(int itemId) {
+        pending.remove(itemId);
+    }
+
+    public synchronized void start() {
+        if (flusher != null)
+            return;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Like Counter Flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stop the periodic flush and write out the remaining increments */
+    public synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    /** Apply every pending delta in one transaction; returns the number of likes written */
+    public int flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<LongAdder> counters = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<Integer, LongAdder> e : pending.entrySet()) {
+            // Only this much is taken off; increments racing with the flush land in the next one
+            long delta = e.getValue().sum();
+            if (delta != 0) {
+                rows.add(new Object[] { delta, e.getKey() });
+                counters.add(e.getValue());
+                total += delta;
+            }
+        }
+        if (rows.isEmpty())
+            return 0;
+
+        boolean[] taken = { false };
+        try {
+            db.inTransaction(tx -> {
+                // A busy retry re-runs this after a rollback; put back what the failed attempt took
+                if (taken[0]) {
+                    adjust(rows, counters, 1);
+                    taken[0] = false;
+                }
+                tx.executeBatch(FLUSH_SQL, rows);
+                adjust(rows, counters, -1);
+                taken[0] = true;
+                return null;
+            });
+            return (int) total;
+        } catch (DatabaseException e) {
+            if (taken[0])
+                adjust(rows, counters, 1);
+            System.err.println("[LikeCounters] Flush of " + total + " likes failed, will retry: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Add sign * each row's delta to the counter it was read from (a discarded one is no longer reachable) */
+    private static void adjust(List<Object[]> rows, List<LongAdder> counters, int sign) {
+        for (int i = 0; i < rows.size(); i++)
+            counters.get(i).add(sign * (Long) rows.get(i)[0]);
+    }
+}
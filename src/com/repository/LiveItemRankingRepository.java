@@ -0,0 +1,124 @@
+package com.repository;
+
+import com.entities.ItemRanking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Like leaderboard kept up to date incrementally instead of recomputed with
+ * ORDER BY like_count.
+ *
+ * Every item has one entry in a sorted set (most likes first, newer id first on
+ * ties) plus an index by id, so a like moves one entry in O(log n) and the top
+ * k are the first k entries, read in O(k). Entries are immutable and replaced
+ * on change. Writers take the write lock; reads share the read lock. Nothing
+ * here touches the database.
+ */
+public class LiveItemRankingRepository implements ItemRankingRepository {
+
+    private record Entry(int itemId, String itemName, int likeCount) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likeCount).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::itemId).reversed());
+
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+    private final Map<Integer, Entry> byId = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void replaceAll(List<ItemRanking> ranking) {
+        lock.writeLock().lock();
+        try {
+            ranked.clear();
+            byId.clear();
+            if (ranking != null) {
+                for (ItemRanking r : ranking)
+                    putLocked(new Entry(r.getItemId(), r.getItemName(), r.getLikeCount()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ItemRanking> findAll() {
+        return top(DEFAULT_TOP);
+    }
+
+    @Override
+    public List<ItemRanking> top(int k) {
+        List<ItemRanking> result = new ArrayList<>(Math.max(0, Math.min(k, 256)));
+        lock.readLock().lock();
+        try {
+            Iterator<Entry> it = ranked.iterator();
+            while (result.size() < k && it.hasNext()) {
+                Entry e = it.next();
+                result.add(new ItemRanking(e.itemId(), e.itemName(), e.likeCount(), result.size() + 1));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(int itemId, String itemName, int likeCount) {
+        lock.writeLock().lock();
+        try {
+            putLocked(new Entry(itemId, itemName, likeCount));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rename(int itemId, String itemName, int likeCount) {
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.get(itemId);
+            putLocked(new Entry(itemId, itemName, old != null ? old.likeCount() : likeCount));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addLikes(int itemId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.get(itemId);
+            if (old != null)
+                putLocked(new Entry(itemId, old.itemName(), old.likeCount() + delta));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.remove(itemId);
+            if (old != null)
+                ranked.remove(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Entry entry) {
+        Entry old = byId.put(entry.itemId(), entry);
+        if (old != null)
+            ranked.remove(old);
+        ranked.add(entry);
+    }
+}
@@ -3,6 +3,7 @@ package com.repository;
 import com.entities.UserMessage;
 import com.entities.Conversation;
 import java.util.List;
+import java.util.function.Consumer;
 
 public abstract class MessageRepository {
 
@@ -24,6 +25,9 @@ public abstract class MessageRepository {
         // ===== READ: message history for user =====
         public abstract List<UserMessage> getMessageHistory(int userId);
 
+        // ===== READ: stream message history (exports, large histories) =====
+        public abstract void forEachMessageInHistory(int userId, Consumer<UserMessage> action);
+
         // ===== READ: conversations for user (with conversation metadata) =====
         public abstract List<Conversation> getConversationsForUser(int userId);
 
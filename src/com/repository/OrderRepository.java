@@ -2,6 +2,7 @@ package com.repository;
 
 import com.entities.Order;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderRepository {
 
@@ -25,11 +26,27 @@ public interface OrderRepository {
      */
     List<Integer> findCustomersWithOrders();
 
+    /**
+     * Visit every order placed in a period, oldest first, without
+     * materializing the result (used by reports and exports).
+     */
+    void forEachInPeriod(long start, long end, Consumer<Order> action);
+
     /**
      * Update the status (PLACED, CANCELLED, DELIVERED).
      */
     void updateStatus(int orderId, Order.OrderStatus status);
 
+    /**
+     * Update billing address for an order.
+     */
+    void updateBillingAddress(int orderId, String billingAddress);
+
+    /**
+     * Update order total amount.
+     */
+    void updateTotal(int orderId, double totalAmount);
+
     // =============================
     // REPORTING
     // =============================
@@ -0,0 +1,184 @@
+package com.repository;
+
+import com.common.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over (customerId, itemId) pairs, used to skip existence queries
+ * for pairs that are certainly absent (wishlist entries).
+ *
+ * mightContain() false is definite; true means "ask the database". Pairs are
+ * only ever added: a deleted pair keeps answering true, which costs a query but
+ * is never wrong. Until load() has finished, every pair answers true, so a
+ * half-loaded filter cannot hide a row; pairs added while loading are kept.
+ *
+ * Bits live in an AtomicLongArray and are set with CAS, so add and
+ * mightContain need no lock. Hashing is double hashing of a 64-bit mix of the
+ * packed pair.
+ */
+public class PairBloomFilter {
+
+    /** Target false-positive rate at the expected number of pairs */
+    public static final double DEFAULT_FPP = 0.01;
+    /** Capacity floor, so a small table still has room to grow */
+    public static final int MIN_EXPECTED = 100_000;
+
+    private final String name;
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private volatile boolean ready;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    public PairBloomFilter(String name, long expectedPairs, double fpp) {
+        long n = Math.max(expectedPairs, MIN_EXPECTED);
+        // m = -n ln p / (ln 2)^2, k = m/n ln 2
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+
+        this.name = name;
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Filter sized for twice the current row count of table (room to grow),
+     * not yet loaded.
+     */
+    public static PairBloomFilter sizedFor(Database db, String table) {
+        Long rows = db.readOne("SELECT COUNT(*) FROM " + table, rs -> rs.getLong(1));
+        return new PairBloomFilter(table, rows == null ? 0 : rows * 2, DEFAULT_FPP);
+    }
+
+    private static long key(int customerId, int itemId) {
+        return ((long) customerId << 32) | (itemId & 0xffffffffL);
+    }
+
+    /** MurmurHash3 fmix64 */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public void add(int customerId, int itemId) {
+        addKey(key(customerId, itemId));
+    }
+
+    private void addKey(long key) {
+        long h = mix(key);
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask))
+                current = words.get(word);
+        }
+    }
+
+    /** False only if the pair was never added (and the filter is loaded) */
+    public boolean mightContain(int customerId, int itemId) {
+        if (!ready)
+            return true;
+        checks.increment();
+
+        long h = mix(key(customerId, itemId));
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add every (customerColumn, itemColumn) pair of table, scanning rowid ranges
+     * in parallel on the database's read-only connections, then start answering.
+     * If any range fails the filter stays in "always maybe" mode.
+     */
+    public CompletableFuture<Void> load(Database db, String table, String customerColumn, String itemColumn,
+            int parallelism) {
+        long start = System.nanoTime();
+        Long maxId = db.readOne("SELECT MAX(rowid) FROM " + table, rs -> rs.getLong(1));
+        long max = maxId == null ? 0 : maxId;
+        int parts = (int) Math.max(1, Math.min(parallelism, max / 10_000 + 1));
+        long step = max / parts + 1;
+
+        String sql = "SELECT " + customerColumn + ", " + itemColumn + " FROM " + table
+                + " WHERE rowid > ? AND rowid <= ?";
+        List<CompletableFuture<Integer>> scans = new ArrayList<>();
+        for (int p = 0; p < parts; p++) {
+            long from = p * step;
+            // The last range is open-ended so rows inserted during the load are still covered
+            long to = p == parts - 1 ? Long.MAX_VALUE : from + step;
+            scans.add(CompletableFuture.supplyAsync(
+                    () -> db.readEach(sql, rs -> key(rs.getInt(1), rs.getInt(2)), this::addKey, from, to)));
+        }
+
+        return CompletableFuture.allOf(scans.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            long rows = 0;
+            for (CompletableFuture<Integer> scan : scans) {
+                int n = scan.join();
+                if (n < 0) {
+                    System.err.println("[BloomFilter] " + name + " load failed; existence checks go to the database");
+                    return;
+                }
+                rows += n;
+            }
+            ready = true;
+            System.out.printf("[BloomFilter] %s loaded: %d pairs in %d ms, %s%n",
+                    name, rows, (System.nanoTime() - start) / 1_000_000, this);
+        });
+    }
+
+    /** Share of set bits; each check of an absent pair passes all k probes with fill^k */
+    public double fillRatio() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++)
+            set += Long.bitCount(words.get(i));
+        return (double) set / bitCount;
+    }
+
+    /** Current false-positive probability, from the actual fill of the bit array */
+    public double falsePositiveRate() {
+        return Math.pow(fillRatio(), hashCount);
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    /** Checks answered "definitely absent", i.e. queries skipped */
+    public long getNegatives() {
+        return negatives.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("bits=%d k=%d fill=%.2f%% fpRate=%.4f%% checks=%d skipped=%d",
+                bitCount, hashCount, fillRatio() * 100, falsePositiveRate() * 100, getChecks(), getNegatives());
+    }
+}
@@ -0,0 +1,38 @@
+package com.repository;
+
+import com.common.Database;
+
+/**
+ * InteractionRepository over liked_item, wishlist and order_items, each
+ * streamed on a pooled read-only connection so the scan never holds the
+ * writer.
+ */
+public class SQLiteInteractionRepository implements InteractionRepository {
+
+    private static final String[] QUERIES = {
+            "SELECT customer_id, item_id FROM liked_item",
+            "SELECT customer_id, item_id FROM wishlist",
+            "SELECT o.customer_id, oi.item_id FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                    + "WHERE o.status <> 'CANCELED'"
+    };
+
+    private final Database db;
+
+    public SQLiteInteractionRepository(Database db) {
+        this.db = db;
+    }
+
+    @Override
+    public int forEachInteraction(PairConsumer action) {
+        int total = 0;
+        for (String sql : QUERIES) {
+            // Packed into one long per row, as PairBloomFilter does
+            int rows = db.readEach(sql, rs -> ((long) rs.getInt(1) << 32) | (rs.getInt(2) & 0xffffffffL),
+                    pair -> action.accept((int) (pair >>> 32), (int) (long) pair));
+            if (rows < 0)
+                return -1;
+            total += rows;
+        }
+        return total;
+    }
+}
@@ -1,68 +1,356 @@
 package com.repository;
 
 import com.common.Database;
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
 import com.entities.Item;
 import com.entities.ItemRanking;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class SQLiteItemRepository implements ItemRepository {
 
     private final Database db;
+    // Deferred like-count increments; null writes every increment straight away
+    private final LikeCounters likeCounters;
 
-    public SQLiteItemRepository(Database db) {
+    // Category and price-bucket counts; filled from the table on the first facets() call
+    private final ItemFacetIndex facetIndex = new ItemFacetIndex();
+    private volatile boolean facetsLoaded;
+
+    // An item's row write and its facet/vocabulary update happen under the same stripe, so two
+    // writes of one item reach the index in the order they reached the table. These methods must
+    // not be called inside a transaction: the stripe is taken before the Database monitor
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] itemLocks = new Object[LOCK_STRIPES];
+
+    // Terms of items_fts for query correction; filled on the first correctQuery() call
+    private final FuzzyTermIndex vocabulary = new FuzzyTermIndex();
+    private volatile boolean vocabularyLoaded;
+
+    public SQLiteItemRepository(Database db, LikeCounters likeCounters) {
         this.db = db;
+        this.likeCounters = likeCounters;
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            itemLocks[i] = new Object();
     }
 
+    public SQLiteItemRepository(Database db) {
+        this(db, null);
+    }
+
+    // Ids per IN (...) query, well under SQLite's bound-parameter limit
+    private static final int IN_CHUNK = 500;
+
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, name, description, price, stock_quantity, like_count, category";
+
     private Item mapRow(ResultSet rs) throws SQLException {
+        Item item = mapStoredRow(rs);
+        item.setLikeCount(item.getLikeCount() + pendingLikes(item.getId()));
+        return item;
+    }
+
+    /** The row as stored: like_count without the likes LikeCounters has not flushed yet */
+    private Item mapStoredRow(ResultSet rs) throws SQLException {
         return new Item(
-                rs.getInt("id"),
-                rs.getString("name"),
-                rs.getString("description"),
-                rs.getDouble("price"),
-                rs.getInt("stock_quantity"),
-                rs.getInt("like_count"));
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(7),
+                rs.getDouble(4),
+                rs.getInt(5),
+                rs.getInt(6));
+    }
+
+    private Object lockFor(int itemId) {
+        return itemLocks[Math.floorMod(itemId, LOCK_STRIPES)];
+    }
+
+    private int pendingLikes(int itemId) {
+        return likeCounters == null ? 0 : likeCounters.pending(itemId);
     }
 
     @Override
     public Item findById(int id) {
-        String sql = "SELECT * FROM items WHERE id = ?";
+        String sql = "SELECT " + COLUMNS + " FROM items WHERE id = ?";
         return db.queryOne(sql, rs -> mapRow(rs), id);
     }
 
+    @Override
+    public Map<Integer, Item> findByIds(Collection<Integer> ids) {
+        Map<Integer, Item> found = new HashMap<>();
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + IN_CHUNK, distinct.size()));
+            String sql = "SELECT " + COLUMNS + " FROM items WHERE id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            for (Item item : db.queryList(sql, rs -> mapRow(rs), chunk.toArray()))
+                found.put(item.getId(), item);
+        }
+        return found;
+    }
+
     @Override
     public List<Item> findAll() {
-        String sql = "SELECT * FROM items";
+        String sql = "SELECT " + COLUMNS + " FROM items";
         return db.queryList(sql, rs -> mapRow(rs));
     }
 
+    @Override
+    public void forEach(Consumer<Item> action) {
+        String sql = "SELECT " + COLUMNS + " FROM items";
+        db.forEachRow(sql, rs -> mapRow(rs), action);
+    }
+
+    @Override
+    public List<Item> findPage(ItemFilter filter, ItemSort sort, Double afterKey, Integer afterId, int limit) {
+        if (limit <= 0)
+            return List.of();
+
+        // Each order walks an index (idx_items_likes, idx_items_price, or the rowid; the
+        // idx_items_category_* variants when filtered) and seeks straight to the cursor,
+        // so a page costs O(limit) however deep it is. A price range bounds the walk of
+        // the price indexes; other filters are checked on the rows walked
+        String order;
+        String after;
+        switch (sort) {
+            case NEWEST -> {
+                order = "id DESC";
+                after = "id < ?";
+            }
+            case PRICE_LOW -> {
+                order = "price ASC, id ASC";
+                after = "price >= ? AND (price > ? OR id > ?)";
+            }
+            case PRICE_HIGH -> {
+                order = "price DESC, id DESC";
+                after = "price <= ? AND (price < ? OR id < ?)";
+            }
+            default -> {
+                order = "like_count DESC, id DESC";
+                after = "like_count <= ? AND (like_count < ? OR id < ?)";
+            }
+        }
+
+        List<String> where = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addFilter(filter, "", where, params);
+        if (afterId != null) {
+            where.add(after);
+            if (sort != ItemSort.NEWEST) {
+                Object key = sort == ItemSort.POPULAR ? (Object) afterKey.longValue() : afterKey;
+                params.add(key);
+                params.add(key);
+            }
+            params.add(afterId);
+        }
+        params.add(limit);
+
+        String sql = "SELECT " + COLUMNS + " FROM items"
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY " + order + " LIMIT ?";
+        // Stored like counts: the page is ordered and seeked by the column, so the last item's
+        // count must be the column's value to be a valid cursor key (pending likes show after a flush)
+        return db.queryList(sql, rs -> mapStoredRow(rs), params.toArray());
+    }
+
+    /** WHERE terms and parameters for filter, on columns qualified by prefix */
+    private static void addFilter(ItemFilter filter, String prefix, List<String> where, List<Object> params) {
+        if (filter == null)
+            return;
+        if (filter.getCategory() != null) {
+            where.add(prefix + "category = ?");
+            params.add(filter.getCategory());
+        }
+        if (filter.getMinPrice() != null) {
+            where.add(prefix + "price >= ?");
+            params.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            where.add(prefix + "price <= ?");
+            params.add(filter.getMaxPrice());
+        }
+        if (filter.isInStockOnly())
+            where.add(prefix + "stock_quantity > 0");
+    }
+
     @Override
     public int insert(Item item) {
-        String sql = "INSERT INTO items(name, description, price, stock_quantity, like_count) VALUES (?, ?, ?, ?, ?)";
-        return db.executeInsertReturnId(sql,
-                item.getName(), item.getDescription(), item.getPrice(), item.getStockQuantity(), item.getLikeCount());
+        String sql = "INSERT INTO items(name, description, category, price, stock_quantity, like_count) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        int id = db.executeInsertReturnId(sql, item.getName(), item.getDescription(), item.getCategory(),
+                item.getPrice(), item.getStockQuantity(), item.getLikeCount());
+        if (id > 0) {
+            // Callers learn the id from this return, so no update or delete of the item precedes the put
+            synchronized (lockFor(id)) {
+                facetIndex.put(id, item.getCategory(), item.getPrice());
+                if (vocabularyLoaded)
+                    changeTerms(Set.of(), termsOf(item.getName(), item.getDescription()));
+            }
+        }
+        return id;
     }
 
     @Override
     public void update(Item item) {
-        String sql = "UPDATE items SET name=?, description=?, price=?, stock_quantity=?, like_count=? WHERE id=?";
-        db.executeUpdate(sql, item.getName(), item.getDescription(), item.getPrice(), item.getStockQuantity(),
-                item.getLikeCount(), item.getId());
+        // like_count and stock_quantity are left alone: they change concurrently through their own
+        // methods (pending likes, checkouts), and an edit must not undo those
+        String sql = "UPDATE items SET name=?, description=?, category=?, price=? WHERE id=?";
+        synchronized (lockFor(item.getId())) {
+            Set<String> oldTerms = vocabularyLoaded ? storedTerms(item.getId()) : null;
+            int rows = db.executeUpdate(sql, item.getName(), item.getDescription(), item.getCategory(),
+                    item.getPrice(), item.getId());
+            if (rows > 0) {
+                facetIndex.put(item.getId(), item.getCategory(), item.getPrice());
+                if (oldTerms != null)
+                    changeTerms(oldTerms, termsOf(item.getName(), item.getDescription()));
+            }
+        }
     }
 
     @Override
     public void delete(int id) {
         String sql = "DELETE FROM items WHERE id = ?";
-        db.executeUpdate(sql, id);
+        synchronized (lockFor(id)) {
+            Set<String> oldTerms = vocabularyLoaded ? storedTerms(id) : null;
+            if (db.executeUpdate(sql, id) > 0) {
+                facetIndex.remove(id);
+                if (oldTerms != null)
+                    changeTerms(oldTerms, Set.of());
+            }
+        }
+        if (likeCounters != null)
+            likeCounters.discard(id);
     }
 
     @Override
     public List<Item> searchByKeyword(String keyword) {
-        String sql = "SELECT * FROM items WHERE name LIKE ? OR description LIKE ?";
-        String pattern = "%" + keyword + "%";
-        return db.queryList(sql, rs -> mapRow(rs), pattern, pattern);
+        return search(keyword, DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Override
+    public List<Item> search(String query, ItemFilter filter, int limit) {
+        String match = ItemSearchIndex.toMatchExpression(query);
+        if (match.isEmpty() || limit <= 0)
+            return List.of();
+
+        if (filter != null && !filter.isEmpty()) {
+            // Filters apply before the LIMIT, so they cannot empty a page of top hits
+            List<String> where = new ArrayList<>();
+            List<Object> params = new ArrayList<>();
+            params.add(match);
+            addFilter(filter, "items.", where, params);
+            params.add(limit);
+            String sql = "SELECT " + COLUMNS + " FROM items JOIN ("
+                    + "SELECT rowid AS hit_id, bm25(items_fts, " + ItemSearchIndex.NAME_WEIGHT + ", "
+                    + ItemSearchIndex.DESCRIPTION_WEIGHT + ") AS score FROM items_fts WHERE items_fts MATCH ?"
+                    + ") hits ON items.id = hits.hit_id WHERE " + String.join(" AND ", where)
+                    + " ORDER BY hits.score LIMIT ?";
+            return db.queryList(sql, rs -> mapRow(rs), params.toArray());
+        }
+
+        // Rank inside FTS first so only the top hits are joined back to items
+        String sql = "SELECT " + COLUMNS + " FROM items JOIN ("
+                + "SELECT rowid AS hit_id, bm25(items_fts, " + ItemSearchIndex.NAME_WEIGHT + ", "
+                + ItemSearchIndex.DESCRIPTION_WEIGHT + ") AS score FROM items_fts WHERE items_fts MATCH ? "
+                + "ORDER BY score LIMIT ?) hits ON items.id = hits.hit_id ORDER BY hits.score";
+        return db.queryList(sql, rs -> mapRow(rs), match, limit);
+    }
+
+    /** Distinct words of a name and description, as items_fts_vocab counts them (once per item) */
+    private static Set<String> termsOf(String name, String description) {
+        Set<String> terms = new HashSet<>(ItemSearchIndex.tokenize(name));
+        terms.addAll(ItemSearchIndex.tokenize(description));
+        return terms;
+    }
+
+    /** Words of the stored row of itemId, read before a write replaces them; empty if there is no row */
+    private Set<String> storedTerms(int itemId) {
+        Set<String> terms = db.queryOne("SELECT name, description FROM items WHERE id = ?",
+                rs -> termsOf(rs.getString(1), rs.getString(2)), itemId);
+        return terms == null ? Set.of() : terms;
+    }
+
+    /**
+     * Move an item's vocabulary counts from its old words to its new ones, the
+     * way the facet index moves its category. Before the vocabulary is loaded
+     * writes leave it alone: the load reads the counts from the table.
+     */
+    private void changeTerms(Set<String> oldTerms, Set<String> newTerms) {
+        for (String term : oldTerms) {
+            if (!newTerms.contains(term))
+                vocabulary.add(term, -1);
+        }
+        for (String term : newTerms) {
+            if (!oldTerms.contains(term))
+                vocabulary.add(term, 1);
+        }
+    }
+
+    @Override
+    public String correctQuery(String query) {
+        if (!vocabularyLoaded)
+            loadVocabulary();
+        return vocabulary.correct(ItemSearchIndex.tokenize(query));
+    }
+
+    /** One read of items_fts_vocab; writes after it are applied by changeTerms */
+    private synchronized void loadVocabulary() {
+        if (vocabularyLoaded)
+            return;
+        long start = System.nanoTime();
+        int rows = db.forEachRow("SELECT term, doc FROM items_fts_vocab",
+                rs -> Map.entry(rs.getString(1), rs.getInt(2)),
+                term -> vocabulary.add(term.getKey(), term.getValue()));
+        if (rows < 0) {
+            System.err.println("[ItemRepository] Loading search vocabulary failed; will retry");
+            return;
+        }
+        vocabularyLoaded = true;
+        System.out.printf("[ItemRepository] Search vocabulary loaded: %d terms in %d ms%n",
+                rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public ItemFacets facets(String category) {
+        if (!facetsLoaded)
+            loadFacets();
+        return facetIndex.facets(category);
+    }
+
+    /**
+     * One scan of (id, category, price). Writes keep the index current after
+     * that; the scan holds the database lock, so no write lands in the middle of
+     * it, and puts are idempotent, so writes made before it are simply repeated.
+     */
+    private synchronized void loadFacets() {
+        if (facetsLoaded)
+            return;
+        long start = System.nanoTime();
+        int rows = db.forEachRow("SELECT id, category, price FROM items",
+                rs -> new Object[] { rs.getInt(1), rs.getString(2), rs.getDouble(3) },
+                row -> facetIndex.put((Integer) row[0], (String) row[1], (Double) row[2]));
+        if (rows < 0) {
+            System.err.println("[ItemRepository] Loading facet counts failed; will retry");
+            return;
+        }
+        facetsLoaded = true;
+        System.out.printf("[ItemRepository] Facet counts loaded from %d items in %d ms%n",
+                rows, (System.nanoTime() - start) / 1_000_000);
     }
 
     @Override
@@ -73,18 +361,33 @@ public class SQLiteItemRepository implements ItemRepository {
     }
 
     @Override
-    public void insertLike(int userId, int itemId) {
+    public boolean insertLike(int userId, int itemId) {
+        // The UNIQUE(customer_id, item_id) constraint is the dedup check: one statement, no SELECT first
         String sql = "INSERT OR IGNORE INTO liked_item(customer_id, item_id) VALUES (?, ?)";
-        db.executeUpdate(sql, userId, itemId);
+        if (db.executeUpdate(sql, userId, itemId) <= 0)
+            return false;
         incrementLikeCount(itemId);
+        return true;
     }
 
     @Override
     public void incrementLikeCount(int itemId) {
-        String sql = "UPDATE items SET like_count = COALESCE(like_count,0) + 1 WHERE id = ?";
+        if (likeCounters != null) {
+            likeCounters.increment(itemId);
+            return;
+        }
+        String sql = "UPDATE items SET like_count = like_count + 1 WHERE id = ?";
         db.executeUpdate(sql, itemId);
     }
 
+    @Override
+    public List<Item> findLowStock(int threshold, int limit) {
+        // Range scan of idx_items_stock
+        String sql = "SELECT " + COLUMNS + " FROM items WHERE stock_quantity <= ? "
+                + "ORDER BY stock_quantity, id LIMIT ?";
+        return db.queryList(sql, rs -> mapRow(rs), threshold, limit);
+    }
+
     @Override
     public void updateStock(int itemId, int newStock) {
         String sql = "UPDATE items SET stock_quantity = ? WHERE id = ?";
@@ -103,10 +406,17 @@ public class SQLiteItemRepository implements ItemRepository {
         db.executeUpdate(sql, amount, itemId);
     }
 
+    @Override
+    public boolean tryDecreaseStock(int itemId, int amount) {
+        // The check and the decrement are one statement, so concurrent buyers cannot both pass it
+        String sql = "UPDATE items SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+        return db.executeUpdate(sql, amount, itemId, amount) == 1;
+    }
+
     @Override
     public List<ItemRanking> computeRanking() {
         String sql = "SELECT id, name, like_count FROM items ORDER BY like_count DESC LIMIT 10";
         return db.queryList(sql,
-                rs -> new ItemRanking(rs.getInt("id"), rs.getString("name"), rs.getInt("like_count"), 0));
+                rs -> new ItemRanking(rs.getInt(1), rs.getString(2), rs.getInt(3), 0));
     }
 }
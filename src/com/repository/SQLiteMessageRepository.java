@@ -6,11 +6,21 @@ import com.entities.Conversation;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class SQLiteMessageRepository extends MessageRepository {
 
     private final Database db;
 
+    // Column order shared by every message query; mapMessage reads by position
+    private static final String MESSAGE_SELECT = """
+            SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
+                   m.is_read, m.created_at * 1000 as timestamp_ms,
+                   c.customer_id, c.subject
+            FROM messages m
+            JOIN conversations c ON m.conversation_id = c.id
+            """;
+
     public SQLiteMessageRepository(Database database) {
         this.db = database;
     }
@@ -45,12 +55,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
     @Override
     public synchronized List<UserMessage> getConversation(int userId, int staffId) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE c.customer_id = ? OR c.customer_id = ?
                 ORDER BY m.created_at ASC
                 """;
@@ -60,12 +65,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
     @Override
     public synchronized List<UserMessage> getUnreadMessages(int userId, int staffId) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE c.customer_id = ? AND m.user_id != ? AND m.is_read = 0
                 ORDER BY m.created_at DESC
                 """;
@@ -94,17 +94,12 @@ public class SQLiteMessageRepository extends MessageRepository {
                 JOIN messages m ON c.id = m.conversation_id
                 """;
 
-        return db.queryList(sql, rs -> rs.getInt("customer_id"));
+        return db.queryList(sql, rs -> rs.getInt(1));
     }
 
     @Override
     public synchronized List<UserMessage> getMessageHistory(int userId) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE c.customer_id = ? OR m.user_id = ?
                 ORDER BY m.created_at ASC
                 """;
@@ -112,6 +107,17 @@ public class SQLiteMessageRepository extends MessageRepository {
         return db.queryList(sql, this::mapMessage, userId, userId);
     }
 
+    @Override
+    public void forEachMessageInHistory(int userId, Consumer<UserMessage> action) {
+        String sql = MESSAGE_SELECT + """
+                WHERE c.customer_id = ? OR m.user_id = ?
+                ORDER BY m.created_at ASC
+                """;
+
+        // On a reader connection, so a long history does not hold the Database lock while it streams
+        db.readEach(sql, this::mapMessage, action, userId, userId);
+    }
+
     @Override
     public synchronized List<Conversation> getConversationsForUser(int userId) {
         // Check user role
@@ -134,14 +140,14 @@ public class SQLiteMessageRepository extends MessageRepository {
 
             return db.queryList(sql, rs -> {
                 Conversation conv = new Conversation();
-                int customerId = rs.getInt("customer_id");
+                int customerId = rs.getInt(2);
                 conv.setCustomerId(customerId);
                 conv.setStaffId(userId);
                 conv.setCustomerName("Customer " + customerId);
                 conv.setStaffName("Staff " + userId);
-                conv.setUnreadCount(rs.getInt("unread_count"));
-                conv.setLastMessage(rs.getString("last_message"));
-                conv.setLastMessageTime(rs.getLong("last_message_time") * 1000);
+                conv.setUnreadCount(rs.getInt(5));
+                conv.setLastMessage(rs.getString(7));
+                conv.setLastMessageTime(rs.getLong(6) * 1000);
                 return conv;
             }, userId, userId);
         } else {
@@ -160,14 +166,14 @@ public class SQLiteMessageRepository extends MessageRepository {
 
             return db.queryList(sql, rs -> {
                 Conversation conv = new Conversation();
-                int customerId = rs.getInt("customer_id");
+                int customerId = rs.getInt(2);
                 conv.setCustomerId(customerId);
                 conv.setStaffId(userId);
                 conv.setCustomerName("Customer " + customerId);
                 conv.setStaffName("Staff " + userId);
-                conv.setUnreadCount(rs.getInt("unread_count"));
-                conv.setLastMessage(rs.getString("last_message"));
-                conv.setLastMessageTime(rs.getLong("last_message_time") * 1000);
+                conv.setUnreadCount(rs.getInt(5));
+                conv.setLastMessage(rs.getString(7));
+                conv.setLastMessageTime(rs.getLong(6) * 1000);
                 return conv;
             });
         }
@@ -185,7 +191,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
         // Check if conversation exists
         String checkSql = "SELECT id FROM conversations WHERE customer_id = ? AND subject = ?";
-        Integer existingId = db.queryOne(checkSql, rs -> rs.getInt("id"), customerId, subject);
+        Integer existingId = db.queryOne(checkSql, rs -> rs.getInt(1), customerId, subject);
 
         if (existingId != null) {
             return existingId;
@@ -203,19 +209,19 @@ public class SQLiteMessageRepository extends MessageRepository {
     private String determineUserRole(int userId) {
         // Simple role determination - you might want to query users table instead
         String sql = "SELECT role FROM users WHERE id = ?";
-        String role = db.queryOne(sql, rs -> rs.getString("role"), userId);
+        String role = db.queryOne(sql, rs -> rs.getString(1), userId);
         return role != null ? role : "Customer";
     }
 
     private UserMessage mapMessage(ResultSet rs) throws SQLException {
         UserMessage msg = new UserMessage();
-        msg.setId(rs.getInt("id"));
-        msg.setSenderId(rs.getInt("user_id"));
-        msg.setRecipientId(rs.getInt("customer_id"));
-        msg.setSubject(rs.getString("subject"));
-        msg.setContent(rs.getString("content"));
-        msg.setTimeStamp(rs.getLong("timestamp_ms"));
-        msg.setStatus(rs.getInt("is_read") == 1 ? UserMessage.MessageStatus.READ : UserMessage.MessageStatus.UNREAD);
+        msg.setId(rs.getInt(1));
+        msg.setSenderId(rs.getInt(3));
+        msg.setRecipientId(rs.getInt(8));
+        msg.setSubject(rs.getString(9));
+        msg.setContent(rs.getString(5));
+        msg.setTimeStamp(rs.getLong(7));
+        msg.setStatus(rs.getInt(6) == 1 ? UserMessage.MessageStatus.READ : UserMessage.MessageStatus.UNREAD);
         return msg;
     }
 
@@ -223,12 +229,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
     @Override
     public synchronized List<UserMessage> getUnreadMessagesForStaff(int staffId) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE (m.user_id != ? AND m.is_read = 0) OR
                       (c.customer_id != ? AND m.user_id = c.customer_id AND m.is_read = 0)
                 ORDER BY m.created_at DESC
@@ -239,12 +240,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
     @Override
     public synchronized List<UserMessage> getConversationMessages(int customerId, int viewerId) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE c.customer_id = ?
                 ORDER BY m.created_at ASC
                 """;
@@ -281,12 +277,7 @@ public class SQLiteMessageRepository extends MessageRepository {
 
     @Override
     public synchronized List<UserMessage> getRecentMessagesFromCustomer(int customerId, int limit) {
-        String sql = """
-                SELECT m.id, m.conversation_id, m.user_id, m.role, m.content,
-                       m.is_read, m.created_at * 1000 as timestamp_ms,
-                       c.customer_id, c.subject
-                FROM messages m
-                JOIN conversations c ON m.conversation_id = c.id
+        String sql = MESSAGE_SELECT + """
                 WHERE c.customer_id = ? AND m.role = 'Customer'
                 ORDER BY m.created_at DESC
                 LIMIT ?
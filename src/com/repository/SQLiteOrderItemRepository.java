@@ -15,13 +15,16 @@ public class SQLiteOrderItemRepository implements OrderItemRepository {
         this.db = db;
     }
 
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, order_id, item_id, quantity, unit_price";
+
     private OrderItem mapRow(ResultSet rs) throws SQLException {
         return new OrderItem(
-                rs.getInt("id"),
-                rs.getInt("order_id"),
-                rs.getInt("item_id"),
-                rs.getInt("quantity"),
-                rs.getDouble("unit_price"));
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getInt(3),
+                rs.getInt(4),
+                rs.getDouble(5));
     }
 
     @Override
@@ -39,7 +42,7 @@ public class SQLiteOrderItemRepository implements OrderItemRepository {
 
     @Override
     public List<OrderItem> findByOrderId(int orderId) {
-        String sql = "SELECT * FROM order_items WHERE order_id = ?";
+        String sql = "SELECT " + COLUMNS + " FROM order_items WHERE order_id = ?";
         return db.queryList(sql, rs -> mapRow(rs), orderId);
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.entities.Order.OrderStatus;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class SQLiteOrderRepository implements OrderRepository {
 
@@ -16,14 +17,17 @@ public class SQLiteOrderRepository implements OrderRepository {
         this.db = db;
     }
 
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, customer_id, order_date, status, total_amount, billing_address";
+
     private Order mapRow(ResultSet rs) throws SQLException {
         return new Order(
-                rs.getInt("id"),
-                rs.getInt("customer_id"),
-                rs.getLong("order_date"),
-                parseStatus(rs.getString("status")),
-                rs.getDouble("total_amount"),
-                rs.getString("billing_address"));
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getLong(3),
+                parseStatus(rs.getString(4)),
+                rs.getDouble(5),
+                rs.getString(6));
     }
 
     private OrderStatus parseStatus(String statusStr) {
@@ -50,20 +54,27 @@ public class SQLiteOrderRepository implements OrderRepository {
 
     @Override
     public Order findById(int orderId) {
-        String sql = "SELECT * FROM orders WHERE id = ?";
+        String sql = "SELECT " + COLUMNS + " FROM orders WHERE id = ?";
         return db.queryOne(sql, rs -> mapRow(rs), orderId);
     }
 
     @Override
     public List<Order> findByCustomer(int customerId) {
-        String sql = "SELECT * FROM orders WHERE customer_id = ? ORDER BY order_date DESC";
+        String sql = "SELECT " + COLUMNS + " FROM orders WHERE customer_id = ? ORDER BY order_date DESC";
         return db.queryList(sql, rs -> mapRow(rs), customerId);
     }
 
     @Override
     public List<Integer> findCustomersWithOrders() {
         String sql = "SELECT DISTINCT customer_id FROM orders ORDER BY customer_id ASC";
-        return db.queryList(sql, rs -> rs.getInt("customer_id"));
+        return db.queryList(sql, rs -> rs.getInt(1));
+    }
+
+    @Override
+    public void forEachInPeriod(long start, long end, Consumer<Order> action) {
+        String sql = "SELECT " + COLUMNS + " FROM orders WHERE order_date >= ? AND order_date <= ? ORDER BY order_date ASC";
+        // On a reader connection, so a long period does not hold the Database lock while it streams
+        db.readEach(sql, rs -> mapRow(rs), action, start, end);
     }
 
     @Override
@@ -72,17 +83,13 @@ public class SQLiteOrderRepository implements OrderRepository {
         db.executeUpdate(sql, status.name(), orderId);
     }
 
-    /**
-     * Update billing address for an order.
-     */
+    @Override
     public void updateBillingAddress(int orderId, String billingAddress) {
         String sql = "UPDATE orders SET billing_address = ? WHERE id = ?";
         db.executeUpdate(sql, billingAddress, orderId);
     }
 
-    /**
-     * Update order total amount
-     */
+    @Override
     public void updateTotal(int orderId, double totalAmount) {
         String sql = "UPDATE orders SET total_amount = ? WHERE id = ?";
         db.executeUpdate(sql, totalAmount, orderId);
@@ -92,7 +99,7 @@ public class SQLiteOrderRepository implements OrderRepository {
     public double computeTotalSales(long start, long end) {
         String sql = "SELECT COALESCE(SUM(total_amount), 0) FROM orders " +
                 "WHERE order_date >= ? AND order_date <= ? AND status != 'CANCELED'";
-        Double result = db.queryOne(sql, rs -> rs.getDouble(1), start, end);
+        Double result = db.readOne(sql, rs -> rs.getDouble(1), start, end);
         return result != null ? result : 0.0;
     }
 
@@ -100,7 +107,7 @@ public class SQLiteOrderRepository implements OrderRepository {
     public int countOrders(long start, long end) {
         String sql = "SELECT COUNT(*) FROM orders " +
                 "WHERE order_date >= ? AND order_date <= ? AND status != 'CANCELED'";
-        Integer result = db.queryOne(sql, rs -> rs.getInt(1), start, end);
+        Integer result = db.readOne(sql, rs -> rs.getInt(1), start, end);
         return result != null ? result : 0;
     }
 }
\ No newline at end of file
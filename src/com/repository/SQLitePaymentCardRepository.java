@@ -11,19 +11,22 @@ public class SQLitePaymentCardRepository implements PaymentCardRepository {
 
     private final Database db;
 
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, user_id, card_type, card_number, expiry_date, card_holder_name";
+
     public SQLitePaymentCardRepository(Database database) {
         this.db = database;
     }
 
     @Override
     public PaymentCard findById(int id) {
-        String sql = "SELECT * FROM payment_methods WHERE id = ?";
+        String sql = "SELECT " + COLUMNS + " FROM payment_methods WHERE id = ?";
         return db.queryOne(sql, this::mapRow, id);
     }
 
     @Override
     public List<PaymentCard> findByUserId(int userId) {
-        String sql = "SELECT * FROM payment_methods WHERE user_id = ? ORDER BY created_at DESC";
+        String sql = "SELECT " + COLUMNS + " FROM payment_methods WHERE user_id = ? ORDER BY created_at DESC";
         return db.queryList(sql, this::mapRow, userId);
     }
 
@@ -85,17 +88,17 @@ public class SQLitePaymentCardRepository implements PaymentCardRepository {
 
     private PaymentCard mapRow(ResultSet rs) throws SQLException {
         return new PaymentCard(
-            rs.getInt("id"),
-            rs.getInt("user_id"),
-            rs.getString("card_type"),
-            rs.getString("card_number"), // Already masked
-            rs.getString("expiry_date"),
-            rs.getString("card_holder_name"),
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getString(3),
+            rs.getString(4), // Already masked
+            rs.getString(5),
+            rs.getString(6),
             false // Default flag - can be enhanced
         );
     }
 
-    private String maskCardNumber(String cardNumber) {
+    static String maskCardNumber(String cardNumber) {
         if (cardNumber == null || cardNumber.length() < 4) {
             return "**** **** **** ****";
         }
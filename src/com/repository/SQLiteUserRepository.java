@@ -3,8 +3,8 @@ package com.repository;
 import com.common.Database;
 import com.entities.User;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import com.services.AuthenticationService;
 
@@ -18,128 +18,62 @@ public class SQLiteUserRepository implements UserRepository {
         this.auth = auth;
     }
 
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, username, email, password, role, phone_number, address";
+
     private User mapRow(ResultSet rs) throws SQLException {
         return new User.Builder()
-                .setId(rs.getInt("id"))
-                .setUsername(rs.getString("username"))
-                .setEmail(rs.getString("email"))
-                .setHashedPassword(rs.getString("password"))
-                .setRole(parseRoleFromDb(rs.getString("role")))
-                .setPhoneNumber(rs.getString("phone_number"))
-                .setAddress(rs.getString("address"))
+                .setId(rs.getInt(1))
+                .setUsername(rs.getString(2))
+                .setEmail(rs.getString(3))
+                .setHashedPassword(rs.getString(4))
+                .setRole(parseRoleFromDb(rs.getString(5)))
+                .setPhoneNumber(rs.getString(6))
+                .setAddress(rs.getString(7))
                 .build();
     }
 
+    // Lookups use the concurrent read path so parallel logins don't queue on the shared connection
+
     @Override
     public User findById(int id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next())
-                return mapRow(rs);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return db.readOne("SELECT " + COLUMNS + " FROM users WHERE id = ?", this::mapRow, id);
     }
 
     @Override
     public User findByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-            ps.setString(1, username);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next())
-                return mapRow(rs);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return db.readOne("SELECT " + COLUMNS + " FROM users WHERE username = ?", this::mapRow, username);
     }
 
     @Override
     public User findByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-            ps.setString(1, email);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next())
-                return mapRow(rs);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return db.readOne("SELECT " + COLUMNS + " FROM users WHERE email = ?", this::mapRow, email);
     }
 
     @Override
     public User findByUsernameOrEmail(String identifier) {
-        String sql = """
-                SELECT * FROM users
-                WHERE username = ? OR email = ?
-                """;
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-            ps.setString(1, identifier);
-            ps.setString(2, identifier);
-
-            ResultSet rs = ps.executeQuery();
-            if (rs.next())
-                return mapRow(rs);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        // UNION ALL lets each branch use its UNIQUE index; OR would scan the table.
+        // A username match wins over another user's equal email.
+        String sql = "SELECT " + COLUMNS + ", 0 AS prio FROM users WHERE username = ? "
+                + "UNION ALL SELECT " + COLUMNS + ", 1 AS prio FROM users WHERE email = ? "
+                + "ORDER BY prio LIMIT 1";
+        return db.readOne(sql, this::mapRow, identifier, identifier);
     }
 
     @Override
     public int insert(User u) {
-
         String sql = """
                 INSERT INTO users(username, email, password, role, phone_number, address, created_at)
                 VALUES (?, ?, ?, ?, ?, ?, strftime('%s','now'))
                 """;
 
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setString(1, u.getUsername());
-            ps.setString(2, u.getEmail());
-            ps.setString(3, u.getPassword());
-            ps.setString(4, formatRoleForDb(u.getRole()));
-            ps.setString(5, u.getPhoneNumber());
-            ps.setString(6, u.getAddress());
-
-            int affected = ps.executeUpdate();
-            if (affected == 0) {
-                throw new RuntimeException("Insert failed (no rows)");
-            }
-
-            try {
-                ResultSet keys = ps.getGeneratedKeys();
-                if (keys.next())
-                    return keys.getInt(1);
-            } catch (SQLException e) {
-                throw new RuntimeException("Insert succeeded but no ID returned");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return -1;
+        return db.executeInsertReturnId(sql,
+                u.getUsername(),
+                u.getEmail(),
+                u.getPassword(),
+                formatRoleForDb(u.getRole()),
+                u.getPhoneNumber(),
+                u.getAddress());
     }
 
     @Override
@@ -150,57 +84,24 @@ public class SQLiteUserRepository implements UserRepository {
                 WHERE id=?
                 """;
 
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-
-            ps.setString(1, u.getUsername());
-            ps.setString(2, u.getEmail());
-            ps.setString(3, u.getPassword());
-            ps.setString(4, formatRoleForDb(u.getRole()));
-            ps.setString(5, u.getPhoneNumber());
-            ps.setString(6, u.getAddress());
-            ps.setInt(7, u.getId());
-
-            ps.executeUpdate();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        db.executeUpdate(sql,
+                u.getUsername(),
+                u.getEmail(),
+                u.getPassword(),
+                formatRoleForDb(u.getRole()),
+                u.getPhoneNumber(),
+                u.getAddress(),
+                u.getId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM users WHERE id=?";
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql)) {
-            ps.setInt(1, id);
-            ps.executeUpdate();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        db.executeUpdate("DELETE FROM users WHERE id=?", id);
     }
 
     @Override
     public List<User> findStaffAndAdmins() {
-
-        List<User> list = new ArrayList<>();
-
-        String sql = """
-                SELECT * FROM users
-                WHERE role = 'Staff' OR role = 'CEO'
-                """;
-
-        try (PreparedStatement ps = db.getConnection().prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next())
-                list.add(mapRow(rs));
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return list;
+        return db.readList("SELECT " + COLUMNS + " FROM users WHERE role IN ('Staff', 'CEO')", this::mapRow);
     }
 
     @Override
@@ -222,12 +123,12 @@ public class SQLiteUserRepository implements UserRepository {
     // =========================================================
     @Override
     public boolean existsUsername(String username) {
-        return findByUsername(username) != null;
+        return db.readOne("SELECT 1 FROM users WHERE username = ?", rs -> Boolean.TRUE, username) != null;
     }
 
     @Override
     public boolean existsEmail(String email) {
-        return findByEmail(email) != null;
+        return db.readOne("SELECT 1 FROM users WHERE email = ?", rs -> Boolean.TRUE, email) != null;
     }
 
     // Helper methods for role conversion between DB and Java enum
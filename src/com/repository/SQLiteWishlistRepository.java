@@ -8,35 +8,48 @@ import java.util.List;
 
 public class SQLiteWishlistRepository implements WishlistRepository {
     private final Database db;
+    // (customer, item) pairs in wishlist, to skip findByCustomerAndItem queries; may be null
+    private final PairBloomFilter pairFilter;
 
-    public SQLiteWishlistRepository(Database db) {
+    public SQLiteWishlistRepository(Database db, PairBloomFilter pairFilter) {
         this.db = db;
+        this.pairFilter = pairFilter;
     }
 
+    public SQLiteWishlistRepository(Database db) {
+        this(db, null);
+    }
+
+    // Column order shared by every SELECT below; mapRow reads by position
+    private static final String COLUMNS = "id, customer_id, item_id, quantity, added_at";
+
     private Wishlist mapRow(ResultSet result) throws SQLException {
         return new Wishlist(
-                result.getInt("id"),
-                result.getInt("customer_id"),
-                result.getInt("item_id"),
-                result.getInt("quantity"),
-                result.getLong("added_at"));
+                result.getInt(1),
+                result.getInt(2),
+                result.getInt(3),
+                result.getInt(4),
+                result.getLong(5));
     }
 
     @Override
     public Wishlist findById(int id) {
-        String sql = "SELECT * FROM wishlist WHERE id = ?";
+        String sql = "SELECT " + COLUMNS + " FROM wishlist WHERE id = ?";
         return db.queryOne(sql, rs -> mapRow(rs), id);
     }
 
     @Override
     public List<Wishlist> findByCustomerId(int customerId) {
-        String sql = "SELECT * FROM wishlist WHERE customer_id = ? ORDER BY added_at DESC";
+        String sql = "SELECT " + COLUMNS + " FROM wishlist WHERE customer_id = ? ORDER BY added_at DESC";
         return db.queryList(sql, rs -> mapRow(rs), customerId);
     }
 
     @Override
     public Wishlist findByCustomerAndItem(int customerId, int itemId) {
-        String sql = "SELECT * FROM wishlist WHERE customer_id = ? AND item_id = ?";
+        // Usually asked about a pair that is not there yet; the filter answers those without a query
+        if (pairFilter != null && !pairFilter.mightContain(customerId, itemId))
+            return null;
+        String sql = "SELECT " + COLUMNS + " FROM wishlist WHERE customer_id = ? AND item_id = ?";
         return db.queryOne(sql, rs -> mapRow(rs), customerId, itemId);
     }
 
@@ -49,6 +62,8 @@ public class SQLiteWishlistRepository implements WishlistRepository {
                 wishlist.getQuantity(),
                 wishlist.getAddedAt());
         wishlist.setId(id);
+        if (pairFilter != null && id > 0)
+            pairFilter.add(wishlist.getCustomerId(), wishlist.getItemId());
     }
 
     @Override
@@ -0,0 +1,259 @@
+package com.repository;
+
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemSort;
+import com.entities.Item;
+import com.entities.ItemRanking;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Flash-sale stock for hot items, in front of another ItemRepository.
+ *
+ * shard(itemId, n) moves an item's stock into n in-memory counters
+ * (StockShards); from then on its stock methods (tryDecreaseStock,
+ * decreaseStock, increaseStock, updateStock) never touch the item row, so
+ * checkouts of a hot item neither queue on the database writer nor contend on
+ * one counter. Every other item goes straight to the delegate.
+ *
+ * Reads report the exact shard total as the stock of a sharded item. The row
+ * itself is written with that total every flushMs (-Dmall.stock.flushMs,
+ * default 1000), by unshard() and by stop(); until then, queries that filter
+ * or sort on stock in the database (in-stock filter, low-stock list) see the
+ * last written value. A crash loses at most the last interval's stock changes
+ * of sharded items.
+ *
+ * Shard an item before its sale opens: a stock change made through the
+ * delegate while shard() reads the row is not carried over.
+ */
+public class ShardedStockItemRepository implements ItemRepository {
+
+    public static final int DEFAULT_SHARDS = 8;
+    public static final long DEFAULT_FLUSH_MS = 1000;
+
+    private final ItemRepository delegate;
+    private final long flushMs;
+    private final ConcurrentHashMap<Integer, StockShards> shards = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public ShardedStockItemRepository(ItemRepository delegate, long flushMs) {
+        this.delegate = delegate;
+        this.flushMs = Math.max(1, flushMs);
+    }
+
+    public ShardedStockItemRepository(ItemRepository delegate) {
+        this(delegate, Long.getLong("mall.stock.flushMs", DEFAULT_FLUSH_MS));
+    }
+
+    // ===== SHARDING =====
+
+    /** Split itemId's current stock over shardCount counters; false if there is no such item */
+    public boolean shard(int itemId, int shardCount) {
+        Item item = delegate.findById(itemId);
+        if (item == null)
+            return false;
+        shards.computeIfAbsent(itemId, id -> new StockShards(shardCount, item.getStockQuantity()));
+        System.out.println("[StockShards] Item " + itemId + " split over " + shards.get(itemId).shardCount()
+                + " shards, stock " + item.getStockQuantity());
+        return true;
+    }
+
+    /** Write the total back to the row and serve the item from the row again */
+    public void unshard(int itemId) {
+        StockShards removed = shards.remove(itemId);
+        if (removed != null)
+            delegate.updateStock(itemId, removed.total());
+    }
+
+    public boolean isSharded(int itemId) {
+        return shards.containsKey(itemId);
+    }
+
+    /** Write the total of every sharded item to its row; returns how many */
+    public int flush() {
+        int written = 0;
+        for (Map.Entry<Integer, StockShards> e : shards.entrySet()) {
+            delegate.updateStock(e.getKey(), e.getValue().total());
+            written++;
+        }
+        return written;
+    }
+
+    public synchronized void start() {
+        if (flusher != null)
+            return;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Stock Shard Flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stop the periodic flush and write out the current totals */
+    public synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    /** Replace the stock of a sharded item with its shard total; returns item */
+    private Item withShardStock(Item item) {
+        if (item != null) {
+            StockShards s = shards.get(item.getId());
+            if (s != null)
+                item.setStockQuantity(s.total());
+        }
+        return item;
+    }
+
+    private List<Item> withShardStock(List<Item> items) {
+        if (!shards.isEmpty())
+            items.forEach(this::withShardStock);
+        return items;
+    }
+
+    // ===== STOCK =====
+
+    @Override
+    public boolean tryDecreaseStock(int itemId, int amount) {
+        StockShards s = shards.get(itemId);
+        return s != null ? s.tryTake(amount) : delegate.tryDecreaseStock(itemId, amount);
+    }
+
+    @Override
+    public void decreaseStock(int itemId, int amount) {
+        StockShards s = shards.get(itemId);
+        if (s != null)
+            s.takeUpTo(amount);
+        else
+            delegate.decreaseStock(itemId, amount);
+    }
+
+    @Override
+    public void increaseStock(int itemId, int amount) {
+        StockShards s = shards.get(itemId);
+        if (s != null)
+            s.add(amount);
+        else
+            delegate.increaseStock(itemId, amount);
+    }
+
+    @Override
+    public void updateStock(int itemId, int newStock) {
+        StockShards s = shards.get(itemId);
+        if (s != null)
+            s.set(newStock);
+        else
+            delegate.updateStock(itemId, newStock);
+    }
+
+    @Override
+    public List<Item> findLowStock(int threshold, int limit) {
+        return withShardStock(delegate.findLowStock(threshold, limit));
+    }
+
+    // ===== READS (sharded stock patched in) =====
+
+    @Override
+    public Item findById(int id) {
+        return withShardStock(delegate.findById(id));
+    }
+
+    @Override
+    public Map<Integer, Item> findByIds(Collection<Integer> ids) {
+        Map<Integer, Item> found = delegate.findByIds(ids);
+        if (!shards.isEmpty())
+            found.values().forEach(this::withShardStock);
+        return found;
+    }
+
+    @Override
+    public List<Item> findAll() {
+        return withShardStock(delegate.findAll());
+    }
+
+    @Override
+    public void forEach(Consumer<Item> action) {
+        delegate.forEach(item -> action.accept(withShardStock(item)));
+    }
+
+    @Override
+    public List<Item> findPage(ItemFilter filter, ItemSort sort, Double afterKey, Integer afterId, int limit) {
+        return withShardStock(delegate.findPage(filter, sort, afterKey, afterId, limit));
+    }
+
+    @Override
+    public List<Item> searchByKeyword(String keyword) {
+        return withShardStock(delegate.searchByKeyword(keyword));
+    }
+
+    @Override
+    public List<Item> search(String query, ItemFilter filter, int limit) {
+        return withShardStock(delegate.search(query, filter, limit));
+    }
+
+    // ===== EVERYTHING ELSE =====
+
+    @Override
+    public int insert(Item item) {
+        return delegate.insert(item);
+    }
+
+    @Override
+    public void update(Item item) {
+        delegate.update(item);
+    }
+
+    @Override
+    public void delete(int id) {
+        shards.remove(id);
+        delegate.delete(id);
+    }
+
+    @Override
+    public String correctQuery(String query) {
+        return delegate.correctQuery(query);
+    }
+
+    @Override
+    public ItemFacets facets(String category) {
+        return delegate.facets(category);
+    }
+
+    @Override
+    public boolean existsLike(int userId, int itemId) {
+        return delegate.existsLike(userId, itemId);
+    }
+
+    @Override
+    public boolean insertLike(int userId, int itemId) {
+        return delegate.insertLike(userId, itemId);
+    }
+
+    @Override
+    public void incrementLikeCount(int itemId) {
+        delegate.incrementLikeCount(itemId);
+    }
+
+    @Override
+    public List<ItemRanking> computeRanking() {
+        return delegate.computeRanking();
+    }
+}
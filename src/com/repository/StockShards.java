@@ -0,0 +1,98 @@
+package com.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * One item's stock split over N counters, so concurrent buyers of a hot item
+ * update different memory instead of all racing on one value.
+ *
+ * A buyer takes from a shard picked at random with a CAS that never lets it go
+ * negative. If that shard cannot cover the amount, the other shards are tried.
+ * Only when no single shard can cover it does the buyer take the lock, drain
+ * every shard, take the amount if the total allows, and spread the rest
+ * evenly again (rebalancing). Units are only ever moved between shards, never
+ * lost or duplicated, so the sum is always the exact stock.
+ *
+ * Shards are 64 bytes apart so two of them never share a cache line.
+ */
+final class StockShards {
+
+    // Ints per cache line
+    private static final int STRIDE = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int count;
+
+    StockShards(int count, int stock) {
+        this.count = Math.max(1, count);
+        this.cells = new AtomicIntegerArray(this.count * STRIDE);
+        spread(Math.max(0, stock));
+    }
+
+    int shardCount() {
+        return count;
+    }
+
+    /** Exact stock; waits for a rebalance in progress, whose units are briefly in no shard */
+    synchronized int total() {
+        int total = 0;
+        for (int i = 0; i < count; i++)
+            total += cells.get(i * STRIDE);
+        return total;
+    }
+
+    /** Take amount units if at least that many are left */
+    boolean tryTake(int amount) {
+        int start = ThreadLocalRandom.current().nextInt(count);
+        for (int k = 0; k < count; k++) {
+            int cell = (start + k) % count * STRIDE;
+            int value = cells.get(cell);
+            while (value >= amount) {
+                if (cells.compareAndSet(cell, value, value - amount))
+                    return true;
+                value = cells.get(cell);
+            }
+        }
+        return rebalanceAndTake(amount);
+    }
+
+    private synchronized boolean rebalanceAndTake(int amount) {
+        int drained = drain();
+        boolean taken = drained >= amount;
+        spread(taken ? drained - amount : drained);
+        return taken;
+    }
+
+    /** Take amount units, or all that are left if fewer */
+    synchronized void takeUpTo(int amount) {
+        spread(Math.max(0, drain() - amount));
+    }
+
+    void add(int amount) {
+        spread(amount);
+    }
+
+    /** Replace the stock with an absolute value */
+    synchronized void set(int stock) {
+        drain();
+        spread(Math.max(0, stock));
+    }
+
+    private int drain() {
+        int drained = 0;
+        for (int i = 0; i < count; i++)
+            drained += cells.getAndSet(i * STRIDE, 0);
+        return drained;
+    }
+
+    private void spread(int amount) {
+        int each = amount / count;
+        int rest = amount % count;
+        for (int i = 0; i < count; i++) {
+            int share = each + (i < rest ? 1 : 0);
+            if (share != 0)
+                cells.addAndGet(i * STRIDE, share);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Items ranked by exponentially decayed activity: an event of weight w that
+ * happened age ms ago counts w * 2^(-age / halfLife).
+ *
+ * Decaying every score on every tick would touch every item. Instead each item
+ * keeps the log of its activity measured at a fixed epoch (the index's
+ * creation): an event at time t adds w * e^(lambda * (t - epoch)), and the
+ * score at time now is that sum times e^(-lambda * (now - epoch)). The sum grows
+ * without bound, so it is stored as its logarithm and events are added with
+ * log-sum-exp; an event is O(1) arithmetic plus one O(log n) move in the
+ * sorted set. Every score decays by the same factor, so the order of the set
+ * never changes with time alone and the top k are its first k entries.
+ *
+ * Items whose score has fallen below minScore are dropped from the end of the
+ * set as events arrive, so the index holds only recently active items.
+ * Writers take the write lock; reads share the read lock. Nothing here touches
+ * the database.
+ */
+public class TrendingIndex {
+
+    public record Trend(int itemId, double score) {
+    }
+
+    private record Entry(int itemId, double logScore) {
+    }
+
+    public static final long DEFAULT_HALF_LIFE_MINUTES = 360;
+    public static final double DEFAULT_MIN_SCORE = 0.1;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::logScore).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::itemId).reversed());
+
+    // Decay rate per ms: ln 2 / half-life
+    private final double lambda;
+    private final long epoch;
+    private final double logMinScore;
+
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+    private final Map<Integer, Entry> byId = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TrendingIndex(long halfLifeMs, double minScore, long epoch) {
+        this.lambda = Math.log(2) / Math.max(1, halfLifeMs);
+        this.logMinScore = Math.log(Math.max(Double.MIN_NORMAL, minScore));
+        this.epoch = epoch;
+    }
+
+    public TrendingIndex() {
+        this(Long.getLong("mall.trending.halfLifeMinutes", DEFAULT_HALF_LIFE_MINUTES) * 60_000,
+                DEFAULT_MIN_SCORE, System.currentTimeMillis());
+    }
+
+    // ===== WRITES =====
+
+    /** Record activity of the given weight on itemId at time nowMs */
+    public void add(int itemId, double weight, long nowMs) {
+        if (weight <= 0)
+            return;
+        double logEvent = Math.log(weight) + lambda * (nowMs - epoch);
+
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.get(itemId);
+            double logScore = logEvent;
+            if (old != null) {
+                ranked.remove(old);
+                logScore = logSumExp(old.logScore(), logEvent);
+            }
+            Entry entry = new Entry(itemId, logScore);
+            byId.put(itemId, entry);
+            ranked.add(entry);
+            dropStale(nowMs);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int itemId) {
+        lock.writeLock().lock();
+        try {
+            Entry old = byId.remove(itemId);
+            if (old != null)
+                ranked.remove(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** log(e^a + e^b) without overflowing */
+    private static double logSumExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    /** Remove entries from the low end while their score at nowMs is below minScore */
+    private void dropStale(long nowMs) {
+        double cutoff = logMinScore + lambda * (nowMs - epoch);
+        while (!ranked.isEmpty() && ranked.last().logScore() < cutoff)
+            byId.remove(ranked.pollLast().itemId());
+    }
+
+    // ===== LOOKUP =====
+
+    /** Up to k most active items at time nowMs, highest score first; items below minScore are left out */
+    public List<Trend> top(int k, long nowMs) {
+        List<Trend> result = new ArrayList<>(Math.max(0, Math.min(k, 256)));
+        double decay = lambda * (nowMs - epoch);
+        lock.readLock().lock();
+        try {
+            Iterator<Entry> it = ranked.iterator();
+            while (result.size() < k && it.hasNext()) {
+                Entry e = it.next();
+                if (e.logScore() - decay < logMinScore)
+                    break;
+                result.add(new Trend(e.itemId(), Math.exp(e.logScore() - decay)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /** itemId's score at time nowMs; 0 if it has no recent activity */
+    public double score(int itemId, long nowMs) {
+        lock.readLock().lock();
+        try {
+            Entry e = byId.get(itemId);
+            return e == null ? 0 : Math.exp(e.logScore() - lambda * (nowMs - epoch));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Items currently tracked */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -8,9 +8,22 @@ import com.common.dto.item.ItemEditRequest;
 import com.common.dto.item.ItemUploadRequest;
 import com.common.dto.item.ItemSearchRequest;
 import com.common.dto.item.ItemLikeRequest;
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
+import com.common.dto.item.ItemPage;
+import com.common.dto.item.ItemPageRequest;
+import com.common.dto.item.ItemRankingRequest;
+import com.common.dto.item.ItemRecommendationRequest;
+import com.common.dto.item.ItemSort;
+import com.common.dto.item.ItemSuggestRequest;
 import com.entities.Item;
 import com.entities.LikeRecord;
 import com.entities.ItemRanking;
+import com.managers.item.RankingManager;
+import com.managers.item.RecommendationManager;
+import com.managers.item.SuggestManager;
+import com.managers.item.TrendingManager;
+import com.repository.ItemRankingRepository;
 import com.repository.ItemRepository;
 
 import java.util.*;
@@ -23,6 +36,8 @@ import java.util.concurrent.CompletableFuture;
  * - Likes
  * - Item uploads/edits/removals (Admin)
  * - Ranking computations
+ * - Trending items
+ * - Type-ahead suggestions
  * - Purchase trigger (PurchaseManager is inside OrderManagement, but we
  * coordinate)
  */
@@ -32,23 +47,49 @@ public class ItemManagement implements Subsystems {
     private AsyncMessageBroker broker;
 
     private final ItemRepository repo;
+    private final RankingManager rankingManager;
+    private final SuggestManager suggestManager;
+    private final RecommendationManager recommendationManager;
+    private final TrendingManager trendingManager;
 
-    // Temporary stores for likes kept locally where no repo exists yet
+    private static final int SEARCH_RESULT_LIMIT = 50;
+    private static final int DEFAULT_SUGGESTIONS = 5;
+    private static final int DEFAULT_RECOMMENDATIONS = 5;
+
+    // Low-stock view: items with at most this many units (unless the request says otherwise)
+    private static final int LOW_STOCK_THRESHOLD = 5;
+    private static final int LOW_STOCK_LIMIT = 50;
+
+    // Browse pages: pageSize outside 1..MAX_PAGE_SIZE falls back to the default
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Temporary store for likes kept locally where no repo exists yet
     private Map<Integer, LikeRecord> likeDB = new HashMap<>();
-    private Map<Integer, ItemRanking> rankingDB = new HashMap<>();
 
-    public ItemManagement(ItemRepository repo) {
+    public ItemManagement(ItemRepository repo, RankingManager rankingManager, SuggestManager suggestManager,
+            RecommendationManager recommendationManager, TrendingManager trendingManager) {
         this.repo = repo;
+        this.rankingManager = rankingManager;
+        this.suggestManager = suggestManager;
+        this.recommendationManager = recommendationManager;
+        this.trendingManager = trendingManager;
     }
 
     // Listeners (each corresponds to UML manager)
     private final Listener browseListener = this::handleBrowse;
+    private final Listener lookupListener = this::handleLookup;
     private final Listener searchListener = this::handleSearch;
     private final Listener uploadListener = this::handleUpload;
     private final Listener editListener = this::handleEdit;
     private final Listener refillListener = this::handleRefill;
     private final Listener removeListener = this::handleRemove;
     private final Listener likeListener = this::handleLike;
+    private final Listener rankingListener = this::handleRanking;
+    private final Listener trendingListener = this::handleTrending;
+    private final Listener suggestListener = this::handleSuggest;
+    private final Listener recommendListener = this::handleRecommend;
+    private final Listener lowStockListener = this::handleLowStock;
 
     @Override
     public void init(AsyncMessageBroker broker) {
@@ -56,14 +97,20 @@ public class ItemManagement implements Subsystems {
 
         // Register listeners
         broker.registerListener(EventType.ITEM_BROWSE_REQUESTED, browseListener);
+        broker.registerListener(EventType.ITEM_LOOKUP_REQUESTED, lookupListener);
         broker.registerListener(EventType.ITEM_SEARCH_REQUESTED, searchListener);
+        broker.registerListener(EventType.ITEM_SUGGEST_REQUESTED, suggestListener);
+        broker.registerListener(EventType.ITEM_RECOMMENDATIONS_REQUESTED, recommendListener);
 
         broker.registerListener(EventType.ITEM_UPLOAD_REQUESTED, uploadListener);
         broker.registerListener(EventType.ITEM_EDIT_REQUESTED, editListener);
         broker.registerListener(EventType.ITEM_REFILL_REQUESTED, refillListener);
         broker.registerListener(EventType.ITEM_REMOVE_REQUESTED, removeListener);
+        broker.registerListener(EventType.ITEM_LOW_STOCK_REQUESTED, lowStockListener);
 
         broker.registerListener(EventType.ITEM_LIKE_REQUESTED, likeListener);
+        broker.registerListener(EventType.ITEM_RANKING_REQUESTED, rankingListener);
+        broker.registerListener(EventType.ITEM_TRENDING_REQUESTED, trendingListener);
 
         System.out.println("[ItemManagement] Initialized");
     }
@@ -71,14 +118,20 @@ public class ItemManagement implements Subsystems {
     @Override
     public void shutdown() {
         broker.unregisterListener(EventType.ITEM_BROWSE_REQUESTED, browseListener);
+        broker.unregisterListener(EventType.ITEM_LOOKUP_REQUESTED, lookupListener);
         broker.unregisterListener(EventType.ITEM_SEARCH_REQUESTED, searchListener);
+        broker.unregisterListener(EventType.ITEM_SUGGEST_REQUESTED, suggestListener);
+        broker.unregisterListener(EventType.ITEM_RECOMMENDATIONS_REQUESTED, recommendListener);
 
         broker.unregisterListener(EventType.ITEM_UPLOAD_REQUESTED, uploadListener);
         broker.unregisterListener(EventType.ITEM_EDIT_REQUESTED, editListener);
         broker.unregisterListener(EventType.ITEM_REFILL_REQUESTED, refillListener);
         broker.unregisterListener(EventType.ITEM_REMOVE_REQUESTED, removeListener);
+        broker.unregisterListener(EventType.ITEM_LOW_STOCK_REQUESTED, lowStockListener);
 
         broker.unregisterListener(EventType.ITEM_LIKE_REQUESTED, likeListener);
+        broker.unregisterListener(EventType.ITEM_RANKING_REQUESTED, rankingListener);
+        broker.unregisterListener(EventType.ITEM_TRENDING_REQUESTED, trendingListener);
 
         System.out.println("[ItemManagement] Shutdown complete");
     }
@@ -94,6 +147,12 @@ public class ItemManagement implements Subsystems {
         return CompletableFuture.runAsync(() -> {
             // System.out.println("[ItemManagement] Browsing all items...");
 
+            if (message.getPayload() instanceof ItemPageRequest req) {
+                broker.publish(EventType.ITEM_PAGE_RETURNED, browsePage(req));
+                return;
+            }
+
+            // Legacy whole-catalog browse, answered on ITEM_LIST_RETURNED
             List<Item> items = repo.findAll();
 
             // Sort by like count (descending) - most liked items first
@@ -103,32 +162,186 @@ public class ItemManagement implements Subsystems {
         });
     }
 
+    /** The requested items by id (a bulk findByIds), for screens that already know which items they show */
+    private CompletableFuture<Void> handleLookup(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            List<Integer> ids = new ArrayList<>();
+            Object payload = message.getPayload();
+            if (payload instanceof Integer id) {
+                ids.add(id);
+            } else if (payload instanceof Collection<?> requested) {
+                for (Object o : requested) {
+                    if (o instanceof Integer id)
+                        ids.add(id);
+                }
+            }
+
+            Map<Integer, Item> found = ids.isEmpty() ? new HashMap<>() : repo.findByIds(ids);
+            broker.publish(EventType.ITEM_LOOKUP_RETURNED, found);
+        });
+    }
+
+    /**
+     * One keyset page, optionally within one category, with the facet counts.
+     * One extra row is fetched to learn whether another page follows; the
+     * cursor is "sortValue:id" of the last item on the page.
+     */
+    private ItemPage browsePage(ItemPageRequest req) {
+        ItemSort sort = req.getSort() == null ? ItemSort.POPULAR : req.getSort();
+        int size = req.getPageSize() > 0 && req.getPageSize() <= MAX_PAGE_SIZE ? req.getPageSize()
+                : DEFAULT_PAGE_SIZE;
+
+        Double afterKey = null;
+        Integer afterId = null;
+        String cursor = req.getCursor();
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                int sep = cursor.lastIndexOf(':');
+                afterKey = Double.valueOf(cursor.substring(0, sep));
+                afterId = Integer.valueOf(cursor.substring(sep + 1));
+            } catch (RuntimeException e) {
+                System.out.println("[ItemManagement] Invalid browse cursor '" + cursor + "', starting over");
+                afterKey = null;
+                afterId = null;
+            }
+        }
+
+        ItemFilter filter = req.getFilter() == null ? new ItemFilter(null) : req.getFilter();
+        ItemFacets facets = repo.facets(filter.getCategory());
+
+        List<Item> items = repo.findPage(filter, sort, afterKey, afterId, size + 1);
+        if (items.size() <= size)
+            return new ItemPage(items, sort, null, facets);
+
+        List<Item> page = new ArrayList<>(items.subList(0, size));
+        Item last = page.get(size - 1);
+        // findPage reports the values it sorted by, so these match the index the next page seeks
+        double key = switch (sort) {
+            case POPULAR -> last.getLikeCount();
+            case PRICE_LOW, PRICE_HIGH -> last.getPrice();
+            case NEWEST -> 0;
+        };
+        return new ItemPage(page, sort, key + ":" + last.getId(), facets);
+    }
+
     private CompletableFuture<Void> handleSearch(Message message) {
         return CompletableFuture.runAsync(() -> {
 
             Object payload = message.getPayload();
             String term = null;
+            ItemFilter filter = null;
+            ItemSort sort = null;
 
             if (payload instanceof ItemSearchRequest req) {
                 term = req.getKeyword();
+                filter = new ItemFilter(req.getCategory(), req.getMinPrice(), req.getMaxPrice(),
+                        req.isInStockOnly());
+                sort = parseSort(req.getSortOrder());
             } else if (payload instanceof String) {
                 term = (String) payload;
             }
 
             // System.out.println("[ItemManagement] Searching for: " + (term != null ? term : ""));
 
-            List<Item> results = repo.searchByKeyword(term == null ? "" : term);
+            // Ranked full-text search; only the best matches are returned
+            List<Item> results = repo.search(term == null ? "" : term, filter, SEARCH_RESULT_LIMIT);
+
+            // Nothing found: retry once with misspelled words corrected from the index vocabulary
+            if ((results == null || results.isEmpty()) && term != null && !term.isBlank()) {
+                String corrected = repo.correctQuery(term);
+                if (corrected != null) {
+                    results = repo.search(corrected, filter, SEARCH_RESULT_LIMIT);
+                    if (!results.isEmpty())
+                        System.out.println("[ItemManagement] No matches for '" + term + "', showing '"
+                                + corrected + "'");
+                }
+            }
 
             // TC14: Search Empty - handle no results
             if (results == null || results.isEmpty()) {
                 System.out.println("[ItemManagement] No matches found for: " + (term != null ? term : ""));
-                broker.publish(EventType.ITEM_LIST_RETURNED, List.of());
+                results = List.of();
+            }
+
+            // A search request gets a page with facet counts; a bare keyword keeps the plain list
+            if (filter != null) {
+                if (sort != null && results.size() > 1) {
+                    results = new ArrayList<>(results);
+                    results.sort(searchOrder(sort));
+                }
+                broker.publish(EventType.ITEM_PAGE_RETURNED,
+                        new ItemPage(results, sort, null, repo.facets(filter.getCategory())));
             } else {
                 broker.publish(EventType.ITEM_LIST_RETURNED, results);
             }
         });
     }
 
+    /** ItemSort named by a search request's sortOrder; null (best match first) if unset or unknown */
+    private static ItemSort parseSort(String sortOrder) {
+        if (sortOrder == null || sortOrder.isBlank())
+            return null;
+        try {
+            return ItemSort.valueOf(sortOrder.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ItemManagement] Unknown sort order '" + sortOrder + "', using best match");
+            return null;
+        }
+    }
+
+    /** Browse order applied to the (at most SEARCH_RESULT_LIMIT) search hits */
+    private static Comparator<Item> searchOrder(ItemSort sort) {
+        Comparator<Item> byId = Comparator.comparingInt(Item::getId);
+        return switch (sort) {
+            case NEWEST -> byId.reversed();
+            case PRICE_LOW -> Comparator.comparingDouble(Item::getPrice).thenComparing(byId);
+            case PRICE_HIGH -> Comparator.comparingDouble(Item::getPrice).thenComparing(byId).reversed();
+            case POPULAR -> Comparator.comparingInt(Item::getLikeCount).thenComparing(byId).reversed();
+        };
+    }
+
+    /** Completions of a partly typed name, served from memory */
+    private CompletableFuture<Void> handleSuggest(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            String prefix = null;
+            int limit = DEFAULT_SUGGESTIONS;
+
+            Object payload = message.getPayload();
+            if (payload instanceof ItemSuggestRequest req) {
+                prefix = req.getPrefix();
+                if (req.getLimit() > 0)
+                    limit = req.getLimit();
+            } else if (payload instanceof String) {
+                prefix = (String) payload;
+            }
+
+            List<ItemRanking> suggestions = suggestManager.suggest(prefix == null ? "" : prefix, limit);
+            broker.publish(EventType.ITEM_SUGGESTIONS_RETURNED, suggestions);
+        });
+    }
+
+    /** Items chosen together with the requested one, from the in-memory co-occurrence index */
+    private CompletableFuture<Void> handleRecommend(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            Object payload = message.getPayload();
+            int itemId;
+            int limit = DEFAULT_RECOMMENDATIONS;
+            if (payload instanceof ItemRecommendationRequest req) {
+                itemId = req.getItemId();
+                if (req.getLimit() > 0)
+                    limit = req.getLimit();
+            } else if (payload instanceof Integer id) {
+                itemId = id;
+            } else {
+                broker.publish(EventType.ITEM_RECOMMENDATIONS_RETURNED, List.of());
+                return;
+            }
+
+            List<Item> recommended = recommendationManager.alsoLiked(itemId, limit);
+            broker.publish(EventType.ITEM_RECOMMENDATIONS_RETURNED, recommended);
+        });
+    }
+
     // ================================================================
     // ADMIN MANAGER (Upload/Edit/Remove)
     // ================================================================
@@ -159,10 +372,15 @@ public class ItemManagement implements Subsystems {
             }
 
             try {
-                Item item = new Item(0, req.getName(), req.getDescription(), req.getPrice(), req.getStock(), 0);
+                String category = req.getCategory() == null || req.getCategory().isBlank() ? null
+                        : req.getCategory().trim();
+                Item item = new Item(0, req.getName(), req.getDescription(), category, req.getPrice(),
+                        req.getStock(), 0);
                 int id = repo.insert(item);
                 if (id > 0) {
                     item.setId(id);
+                    rankingManager.onItemSaved(item);
+                    suggestManager.onItemSaved(item);
                     broker.publish(EventType.ITEM_UPDATE_SUCCESS, item);
                     System.out.println("[ItemManagement] Item uploaded: " + item.getName() + " (ID: " + id + ")");
                 } else {
@@ -188,27 +406,55 @@ public class ItemManagement implements Subsystems {
                 return;
             }
 
-            if (req.getNewName() != null && !req.getNewName().isBlank())
+            boolean detailsChanged = false;
+            if (req.getNewName() != null && !req.getNewName().isBlank()) {
                 item.setName(req.getNewName());
+                detailsChanged = true;
+            }
 
-            if (req.getNewDescription() != null)
+            if (req.getNewDescription() != null) {
                 item.setDescription(req.getNewDescription());
+                detailsChanged = true;
+            }
+
+            if (req.getNewCategory() != null && !req.getNewCategory().isBlank()) {
+                item.setCategory(req.getNewCategory().trim());
+                detailsChanged = true;
+            }
 
             if (req.getNewPrice() != null) {
                 item.setPrice(req.getNewPrice());
+                detailsChanged = true;
             }
 
+            // update() saves the details only; stock has its own write, so each is written once
+            if (detailsChanged)
+                repo.update(item);
+
             if (req.getNewStock() != null) {
                 item.setStockQuantity(req.getNewStock());
                 repo.updateStock(item.getId(), req.getNewStock());
             }
 
-            repo.update(item);
+            rankingManager.onItemEdited(item);
+            suggestManager.onItemEdited(item);
             broker.publish(EventType.ITEM_UPDATE_SUCCESS, item);
             System.out.println("[ItemManagement] Item edited");
         });
     }
 
+    /** Items running out, fewest units first, from the stock index */
+    private CompletableFuture<Void> handleLowStock(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            int threshold = LOW_STOCK_THRESHOLD;
+            if (message.getPayload() instanceof Integer t && t >= 0)
+                threshold = t;
+
+            List<Item> low = repo.findLowStock(threshold, LOW_STOCK_LIMIT);
+            broker.publish(EventType.ITEM_LOW_STOCK_RETURNED, low);
+        });
+    }
+
     private CompletableFuture<Void> handleRefill(Message message) {
         return CompletableFuture.runAsync(() -> {
             Object payload = message.getPayload();
@@ -242,6 +488,9 @@ public class ItemManagement implements Subsystems {
             Item existing = repo.findById(itemId);
             if (existing != null) {
                 repo.delete(itemId);
+                rankingManager.onItemRemoved(itemId);
+                suggestManager.onItemRemoved(itemId);
+                trendingManager.onItemRemoved(itemId);
                 broker.publish(EventType.ITEM_UPDATE_SUCCESS, "Item removed");
             } else {
                 broker.publish(EventType.ITEM_UPDATE_SUCCESS, "Remove failed: Item not found");
@@ -274,14 +523,15 @@ public class ItemManagement implements Subsystems {
             }
 
             try {
-                // Check if user already liked this item
-                if (repo.existsLike(userId, itemId)) {
+                // Insert like record and increment count; false if this user already liked it
+                if (!repo.insertLike(userId, itemId)) {
                     broker.publish(EventType.ITEM_UPDATE_SUCCESS, "Item already liked");
                     return;
                 }
-
-                // Insert like record and increment count
-                repo.insertLike(userId, itemId);
+                rankingManager.onItemLiked(itemId);
+                suggestManager.onItemLiked(itemId);
+                recommendationManager.onInteraction(userId, itemId);
+                trendingManager.onItemLiked(itemId);
 
                 // Get updated item to return with new like count
                 Item item = repo.findById(itemId);
@@ -298,4 +548,33 @@ public class ItemManagement implements Subsystems {
             }
         });
     }
-}
\ No newline at end of file
+
+    // ================================================================
+    // RANKING MANAGER
+    // ================================================================
+    private CompletableFuture<Void> handleRanking(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            int limit = ItemRankingRepository.DEFAULT_TOP;
+            if (message.getPayload() instanceof ItemRankingRequest req && req.getLimit() > 0)
+                limit = req.getLimit();
+
+            // Served from the live leaderboard in O(limit)
+            List<ItemRanking> ranking = rankingManager.top(limit);
+            broker.publish(EventType.ITEM_RANKING_RETURNED, ranking);
+        });
+    }
+
+    /** Items with the most recent activity, from the decayed trending index */
+    private CompletableFuture<Void> handleTrending(Message message) {
+        return CompletableFuture.runAsync(() -> {
+            int limit = ItemRankingRepository.DEFAULT_TOP;
+            if (message.getPayload() instanceof ItemRankingRequest req && req.getLimit() > 0)
+                limit = req.getLimit();
+            else if (message.getPayload() instanceof Integer n && n > 0)
+                limit = n;
+
+            List<ItemRanking> trending = trendingManager.top(limit);
+            broker.publish(EventType.ITEM_TRENDING_RETURNED, trending);
+        });
+    }
+}
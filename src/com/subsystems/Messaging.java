@@ -17,11 +17,17 @@ public class Messaging implements Subsystems {
         this.database = database;
     }
 
+    // Constructor to accept a ready repository (e.g. in-memory storage)
+    public Messaging(MessageRepository repo) {
+        this.repo = repo;
+    }
+
     @Override
     public void init(AsyncMessageBroker broker) {
         this.broker = broker;
-        // Use SQLiteMessageRepository with the database instance
-        this.repo = new SQLiteMessageRepository(database);
+        // Use SQLiteMessageRepository with the database instance unless a repository was given
+        if (repo == null)
+            this.repo = new SQLiteMessageRepository(database);
 
         new SendMessageManager(broker, repo);
         new ReplyMessageManager(broker, repo);
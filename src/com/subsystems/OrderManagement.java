@@ -1,34 +1,49 @@
 package com.subsystems;
 
 import com.broker.*;
+import com.common.Database;
 import com.entities.Order;
 import com.entities.Order.OrderStatus;
 import com.entities.OrderItem;
 import com.common.dto.order.OrderCreateRequest;
+import com.managers.order.CancelOrderManager;
 import com.managers.order.CreateOrderManager;
+import com.managers.order.StockReservationManager;
+import com.managers.order.StockReservationManager.Reservation;
 import com.repository.OrderRepository;
 import com.repository.OrderItemRepository;
 import com.repository.ItemRepository;
 import com.entities.Item;
 
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class OrderManagement implements Subsystems {
 
     private AsyncMessageBroker broker;
     private final CreateOrderManager createOrderManager;
+    private final CancelOrderManager cancelOrderManager;
+    private final StockReservationManager reservations;
     private final OrderRepository orderRepo;
     private final OrderItemRepository orderItemRepo;
     private final ItemRepository itemRepo;
+    // Null with in-memory storage, which has no transactions
+    private final Database db;
 
-    public OrderManagement(CreateOrderManager createOrderManager, OrderRepository orderRepo,
-            OrderItemRepository orderItemRepo, ItemRepository itemRepo) {
+    public OrderManagement(CreateOrderManager createOrderManager, CancelOrderManager cancelOrderManager,
+            StockReservationManager reservations, OrderRepository orderRepo, OrderItemRepository orderItemRepo,
+            ItemRepository itemRepo, Database db) {
         this.createOrderManager = createOrderManager;
+        this.cancelOrderManager = cancelOrderManager;
+        this.reservations = reservations;
         this.orderRepo = orderRepo;
         this.orderItemRepo = orderItemRepo;
         this.itemRepo = itemRepo;
+        this.db = db;
     }
 
     private final Listener handleOrderCreate = this::onOrderCreate;
@@ -58,6 +73,7 @@ public class OrderManagement implements Subsystems {
 
     @Override
     public void start() {
+        reservations.start();
     }
 
     @Override
@@ -70,6 +86,7 @@ public class OrderManagement implements Subsystems {
         broker.unregisterListener(EventType.ORDER_HISTORY_REQUESTED, handleHistory);
         broker.unregisterListener(EventType.ORDER_STATUS_UPDATE_REQUESTED, handleStatusUpdate);
         broker.unregisterListener(EventType.ORDER_CUSTOMER_LIST_REQUESTED, handleCustomerList);
+        reservations.stop();
 
         System.out.println("[OrderManagement] Shutdown complete.");
     }
@@ -93,8 +110,7 @@ public class OrderManagement implements Subsystems {
 
     // ============================================================
     // PURCHASE_REQUESTED
-    // Handle OrderCreateRequest - stock should be checked before
-    // payment
+    // Handle OrderCreateRequest - stock is reserved before payment
     // ============================================================
     private CompletableFuture<Void> onPurchase(Message m) {
 
@@ -103,10 +119,17 @@ public class OrderManagement implements Subsystems {
 
             // Handle both OrderCreateRequest and Order for backward compatibility
             if (payload instanceof OrderCreateRequest req) {
-                // Stock validation should happen before payment
-                // This subsystem assumes stock is already validated
                 // System.out.println("[OrderManagement] Purchase requested for user " + req.getUserId());
 
+                // Hold the stock while payment runs; a short item fails the purchase before payment
+                try {
+                    reservations.reserve(req);
+                } catch (Exception e) {
+                    System.out.println("[OrderManagement] Purchase rejected: " + e.getMessage());
+                    broker.publish(EventType.ORDER_PAYMENT_FAILED, "Purchase failed: " + e.getMessage());
+                    return;
+                }
+
                 // Publish payment authorization request
                 // Note: In a real implementation, we'd need to create the Order first
                 // and then request payment. For now, we pass the request through.
@@ -144,87 +167,15 @@ public class OrderManagement implements Subsystems {
                         return;
                     }
 
-                    // Calculate total amount for all items
-                    double totalAmount = 0.0;
-                    for (OrderCreateRequest.OrderItemRequest itemReq : req.getItems()) {
-                        com.entities.Item item = itemRepo.findById(itemReq.getItemId());
-                        if (item == null) {
-                            throw new Exception("Item " + itemReq.getItemId() + " not found");
-                        }
-                        totalAmount += item.getPrice() * itemReq.getQuantity();
-                    }
-
-                    // Create a single order with all items
-                    // Use the first item to create the order, then add other items as order items
-                    OrderCreateRequest.OrderItemRequest firstItem = req.getItems().get(0);
-
-                    // Create order using CreateOrderManager (creates order + first order item)
-                    order = createOrderManager.createOrder(
-                            req.getUserId(),
-                            firstItem.getItemId(),
-                            firstItem.getQuantity());
-
-                    // Decrement stock for the first item (since CreateOrderManager no longer does
-                    // it)
-                    com.entities.Item firstItemEntity = itemRepo.findById(firstItem.getItemId());
-                    if (firstItemEntity != null) {
-                        int oldStock = firstItemEntity.getStockQuantity();
-                        int newStock = oldStock - firstItem.getQuantity();
-                        // System.out.println("[OrderManagement] Updating stock for item " + firstItem.getItemId() +
-                        //         ": " + oldStock + " -> " + newStock);
-                        itemRepo.updateStock(firstItem.getItemId(), newStock);
-
-                        // Verify the update
-                        // Item updatedItem = itemRepo.findById(firstItem.getItemId());
-                        // System.out.println("[OrderManagement] Stock after update: " +
-                        //         (updatedItem != null ? updatedItem.getStockQuantity() : "item not found"));
-                    }
-
-                    // Add remaining items to the same order
-                    for (int i = 1; i < req.getItems().size(); i++) {
-                        OrderCreateRequest.OrderItemRequest itemReq = req.getItems().get(i);
-                        com.entities.Item item = itemRepo.findById(itemReq.getItemId());
-                        if (item == null) {
-                            System.out
-                                    .println("[OrderManagement] Item " + itemReq.getItemId() + " not found, skipping");
-                            continue;
-                        }
-
-                        // Check stock
-                        if (item.getStockQuantity() < itemReq.getQuantity()) {
-                            System.out.println("[OrderManagement] Insufficient stock for item " + itemReq.getItemId()
-                                    + ", skipping");
-                            continue;
-                        }
-
-                        // Create order item
-                        OrderItem orderItem = new OrderItem(0, order.getId(), itemReq.getItemId(),
-                                itemReq.getQuantity(), item.getPrice());
-                        orderItemRepo.insert(orderItem);
-
-                        // Reduce stock
-                        int oldStock = item.getStockQuantity();
-                        int newStock = oldStock - itemReq.getQuantity();
-                        // System.out.println("[OrderManagement] Updating stock for item " + itemReq.getItemId() +
-                        //         ": " + oldStock + " -> " + newStock);
-                        itemRepo.updateStock(itemReq.getItemId(), newStock);
-                    }
-
-                    // Update order with shipping address if provided
-                    if (req.getShippingAddress() != null && !req.getShippingAddress().isBlank()) {
-                        order.setBillingAddress(req.getShippingAddress());
-                        if (orderRepo instanceof com.repository.SQLiteOrderRepository sqliteRepo) {
-                            sqliteRepo.updateBillingAddress(order.getId(), req.getShippingAddress());
-                        }
-                    }
-
-                    // Update total amount in order (sum of all items) and database
-                    if (totalAmount != order.getTotalAmount()) {
-                        order.setTotalAmount(totalAmount);
-                        // Update in database
-                        if (orderRepo instanceof com.repository.SQLiteOrderRepository sqliteRepo) {
-                            sqliteRepo.updateTotal(order.getId(), totalAmount);
-                        }
+                    // The reserved stock becomes final; it goes back if the order cannot be written.
+                    // An expired reservation fails the purchase here, so the payment is never captured
+                    Reservation reservation = reservations.commit(req);
+                    try {
+                        // Order, order items and totals commit together or not at all
+                        order = atomically(() -> checkout(req));
+                    } catch (Exception e) {
+                        reservations.restore(reservation);
+                        throw e;
                     }
 
                 } catch (Exception e) {
@@ -257,6 +208,69 @@ public class OrderManagement implements Subsystems {
         });
     }
 
+    // ============================================================
+    // Checkout - everything after payment authorization
+    // ============================================================
+    private Order checkout(OrderCreateRequest req) throws Exception {
+        // Every line's item in one lookup; their stock was already taken by the reservation
+        List<Integer> itemIds = new ArrayList<>();
+        for (OrderCreateRequest.OrderItemRequest itemReq : req.getItems())
+            itemIds.add(itemReq.getItemId());
+        Map<Integer, Item> items = itemRepo.findByIds(itemIds);
+
+        // Calculate total amount for all items
+        double totalAmount = 0.0;
+        for (OrderCreateRequest.OrderItemRequest itemReq : req.getItems()) {
+            Item item = items.get(itemReq.getItemId());
+            if (item == null) {
+                throw new Exception("Item " + itemReq.getItemId() + " not found");
+            }
+            totalAmount += item.getPrice() * itemReq.getQuantity();
+        }
+
+        // Create a single order with all items
+        // Use the first item to create the order, then add other items as order items
+        OrderCreateRequest.OrderItemRequest firstItem = req.getItems().get(0);
+
+        // Create order using CreateOrderManager (creates order + first order item)
+        // The lines' items were loaded above, so the first one's price is not read again
+        Order order = createOrderManager.createOrder(
+                req.getUserId(),
+                items.get(firstItem.getItemId()),
+                firstItem.getQuantity());
+
+        // Add remaining items to the same order
+        for (int i = 1; i < req.getItems().size(); i++) {
+            OrderCreateRequest.OrderItemRequest itemReq = req.getItems().get(i);
+            Item item = items.get(itemReq.getItemId());
+            if (item == null) {
+                System.out
+                        .println("[OrderManagement] Item " + itemReq.getItemId() + " not found, skipping");
+                continue;
+            }
+
+            // Create order item
+            OrderItem orderItem = new OrderItem(0, order.getId(), itemReq.getItemId(),
+                    itemReq.getQuantity(), item.getPrice());
+            orderItemRepo.insert(orderItem);
+        }
+
+        // Update order with shipping address if provided
+        if (req.getShippingAddress() != null && !req.getShippingAddress().isBlank()) {
+            order.setBillingAddress(req.getShippingAddress());
+            orderRepo.updateBillingAddress(order.getId(), req.getShippingAddress());
+        }
+
+        // Update total amount in order (sum of all items) and database
+        if (totalAmount != order.getTotalAmount()) {
+            order.setTotalAmount(totalAmount);
+            // Update in database
+            orderRepo.updateTotal(order.getId(), totalAmount);
+        }
+
+        return order;
+    }
+
     // ============================================================
     // PAYMENT_DENIED
     // Payment Processing Timeout/Failure and Payment Rejected
@@ -270,6 +284,10 @@ public class OrderManagement implements Subsystems {
             String reason = "Payment Authorization Failed";
             if (payload instanceof String) {
                 reason = (String) payload;
+            } else if (payload instanceof OrderCreateRequest req) {
+                // Nothing was ordered; the held stock goes back now rather than at expiry
+                reservations.release(req);
+                reason = "Payment Failed: Authorization denied";
             } else if (payload instanceof com.common.dto.payment.PaymentAuthorizeRequest req) {
                 reason = "Payment Failed: Authorization denied";
                 // System.out.println("[OrderManagement] Payment denied for user " + req.getUserId() + ", amount $"
@@ -304,8 +322,17 @@ public class OrderManagement implements Subsystems {
             // Check if order is cancellable
             // Only PLACED orders can be cancelled, not SHIPPED or DELIVERED
             if (order.getStatus() == OrderStatus.PLACED) {
-                // Cancel eligible order
-                order.setStatus(OrderStatus.CANCELED);
+                // Cancel eligible order, then put its stock back once the cancel has committed
+                try {
+                    Order canceled = atomically(() -> cancelOrderManager.cancel(order.getCustomerId(), order.getId()));
+                    order.setStatus(canceled.getStatus());
+                } catch (Exception e) {
+                    System.out.println("[OrderManagement] Failed to cancel order " + order.getId() + ": "
+                            + e.getMessage());
+                    broker.publish(EventType.ORDER_CANCEL_FAILED, "Cannot cancel order: " + e.getMessage());
+                    return;
+                }
+                cancelOrderManager.restock(order.getId());
                 System.out.println("[OrderManagement] Order " + order.getId() + " cancelled successfully");
 
                 broker.publish(EventType.REFUND_PROCESS_REQUESTED, order);
@@ -386,4 +413,29 @@ public class OrderManagement implements Subsystems {
             }
         });
     }
-}
\ No newline at end of file
+
+    // ============================================================
+    // Transactions
+    // ============================================================
+
+    /** Run work as one database transaction; in-memory storage has none, so it runs as is */
+    private <T> T atomically(Callable<T> work) throws Exception {
+        if (db == null)
+            return work.call();
+
+        try {
+            return db.inTransaction(tx -> {
+                try {
+                    return work.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Checked failures (e.g. "Not enough stock") still roll back
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (CompletionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
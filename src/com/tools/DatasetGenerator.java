@@ -0,0 +1,294 @@
+package com.tools;
+
+import com.common.Database;
+import com.common.DatabaseProfile;
+import com.services.AuthenticationService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * Synthetic dataset generator for load testing.
+ *
+ * Fills the schema with users, items, likes, wishlists, orders with order
+ * items, conversations and messages through batched inserts. The same seed and
+ * volumes always produce the same dataset.
+ *
+ * Usage:
+ * java -cp "lib/*:src" com.tools.DatasetGenerator --db=loadtest.db \
+ * --users=1000000 --items=100000 --likes=5000000 --orders=2000000 \
+ * --messages=5000000 --seed=42
+ *
+ * Options (defaults in parentheses): db (loadtest.db), users (10000), staff (20),
+ * items (5000), likes (200000), wishlist (50000), orders (100000),
+ * maxItemsPerOrder (4), conversations (10000), messages (100000), days (365),
+ * seed (42).
+ *
+ * New rows get explicit ids after the current maximum, so the generator can
+ * also top up an existing database. All users share the password "Password1!".
+ */
+public class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Clothing", "Home", "Books", "Sports", "Toys", "Beauty", "Garden", "Grocery", "Music"
+    };
+    private static final String[] ADJECTIVES = {
+            "Classic", "Smart", "Eco", "Deluxe", "Compact", "Wireless", "Vintage", "Ultra", "Soft", "Portable",
+            "Premium", "Mini", "Pro", "Organic", "Rugged", "Sleek"
+    };
+    private static final String[] NOUNS = {
+            "Headphones", "Jacket", "Lamp", "Novel", "Backpack", "Blender", "Sneakers", "Speaker", "Mug", "Watch",
+            "Keyboard", "Chair", "Tent", "Puzzle", "Guitar", "Camera", "Scarf", "Kettle", "Bottle", "Drone"
+    };
+    private static final String[] SUBJECTS = {
+            "General Inquiry", "Order Status", "Refund Request", "Shipping Delay", "Product Question"
+    };
+    private static final String[] PHRASES = {
+            "Hello, I have a question about my order.", "When will this item be back in stock?",
+            "Thanks for the quick reply!", "Can I change the shipping address?", "The package arrived damaged.",
+            "Your refund has been processed.", "We have shipped your order today.", "Is there a warranty?"
+    };
+
+    private final Database db;
+    private final Map<String, Long> options;
+    private final Random random;
+    private final long now = System.currentTimeMillis();
+
+    private long userBase, itemBase, orderBase, conversationBase;
+    private long customers, staff, itemCount;
+
+    public DatasetGenerator(Database db, Map<String, Long> options) {
+        this.db = db;
+        this.options = options;
+        this.random = new Random(options.get("seed"));
+    }
+
+    public static void main(String[] args) {
+        Map<String, Long> options = new HashMap<>(Map.ofEntries(
+                Map.entry("users", 10_000L), Map.entry("staff", 20L), Map.entry("items", 5_000L),
+                Map.entry("likes", 200_000L), Map.entry("wishlist", 50_000L), Map.entry("orders", 100_000L),
+                Map.entry("maxItemsPerOrder", 4L), Map.entry("conversations", 10_000L),
+                Map.entry("messages", 100_000L), Map.entry("days", 365L), Map.entry("seed", 42L)));
+        String dbPath = "loadtest.db";
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("[DatasetGenerator] Ignoring argument: " + arg);
+                continue;
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (key.equals("db")) {
+                dbPath = value;
+            } else if (options.containsKey(key)) {
+                options.put(key, Long.parseLong(value.replace("_", "")));
+            } else {
+                System.err.println("[DatasetGenerator] Unknown option: " + key);
+            }
+        }
+
+        Database db = new Database();
+        db.connect("jdbc:sqlite:" + dbPath, DatabaseProfile.THROUGHPUT);
+        try {
+            new DatasetGenerator(db, options).generate();
+        } finally {
+            db.close();
+        }
+    }
+
+    public void generate() {
+        long started = System.currentTimeMillis();
+
+        userBase = maxId("users");
+        itemBase = maxId("items");
+        orderBase = maxId("orders");
+        conversationBase = maxId("conversations");
+        customers = options.get("users");
+        staff = options.get("staff");
+        itemCount = options.get("items");
+
+        generateUsers();
+        generateItems();
+        generateLikes();
+        generateWishlist();
+        generateOrders();
+        generateMessages();
+
+        System.out.println("[DatasetGenerator] Done in " + (System.currentTimeMillis() - started) / 1000.0 + " s");
+    }
+
+    // =====================================================================
+    // TABLES
+    // =====================================================================
+
+    private void generateUsers() {
+        // One PBKDF2 hash shared by every user; hashing millions would take hours
+        String password = new AuthenticationService().hashPassword("Password1!");
+        long total = customers + staff;
+
+        insert("users", "INSERT INTO users(id, username, email, password, role, phone_number, address, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", total, i -> {
+                    long id = userBase + i + 1;
+                    String role = i < customers ? "Customer" : "Staff";
+                    String name = (i < customers ? "user" : "staff") + id;
+                    return new Object[] { id, name, name + "@example.com", password, role,
+                            String.format("555-%07d", id % 10_000_000), (id % 9999) + " Market Street",
+                            randomTime() / 1000 };
+                });
+    }
+
+    private void generateItems() {
+        insert("items", "INSERT INTO items(id, name, description, category, price, stock_quantity, like_count) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 0)", itemCount, i -> {
+                    long id = itemBase + i + 1;
+                    String name = pick(ADJECTIVES) + " " + pick(NOUNS) + " " + id;
+                    String category = pick(CATEGORIES);
+                    double price = Math.round((1 + random.nextDouble() * 499) * 100) / 100.0;
+                    return new Object[] { id, name, "A " + category.toLowerCase() + " favourite: " + name,
+                            category, price, random.nextInt(500) };
+                });
+    }
+
+    private void generateLikes() {
+        insert("liked_item", "INSERT OR IGNORE INTO liked_item(customer_id, item_id) VALUES (?, ?)",
+                options.get("likes"), i -> new Object[] { randomCustomer(), popularItem() });
+
+        // Bring items.like_count in line with liked_item for the new items
+        db.executeUpdate("UPDATE items SET like_count = "
+                + "(SELECT COUNT(*) FROM liked_item WHERE liked_item.item_id = items.id) WHERE id > ?", itemBase);
+    }
+
+    private void generateWishlist() {
+        insert("wishlist", "INSERT OR IGNORE INTO wishlist(customer_id, item_id, quantity, added_at) "
+                + "VALUES (?, ?, ?, ?)", options.get("wishlist"),
+                i -> new Object[] { randomCustomer(), popularItem(), 1 + random.nextInt(3), randomTime() });
+    }
+
+    private void generateOrders() {
+        long orders = options.get("orders");
+        int maxLines = (int) Math.max(1, options.get("maxItemsPerOrder"));
+        String[] statuses = { "PLACED", "SHIPPED", "DELIVERED", "DELIVERED", "CANCELED" };
+
+        String orderSql = "INSERT INTO orders(id, customer_id, order_date, status, total_amount, billing_address) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        String lineSql = "INSERT INTO order_items(order_id, item_id, quantity, unit_price, sub_total) "
+                + "VALUES (?, ?, ?, ?, ?)";
+
+        List<Object[]> orderRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> lineRows = new ArrayList<>(BATCH_SIZE * maxLines);
+        long lines = 0;
+        long started = System.currentTimeMillis();
+
+        for (long i = 0; i < orders; i++) {
+            long orderId = orderBase + i + 1;
+            int lineCount = 1 + random.nextInt(maxLines);
+            double total = 0;
+
+            for (int l = 0; l < lineCount; l++) {
+                int quantity = 1 + random.nextInt(3);
+                double unitPrice = Math.round((1 + random.nextDouble() * 499) * 100) / 100.0;
+                total += unitPrice * quantity;
+                lineRows.add(new Object[] { orderId, popularItem(), quantity, unitPrice, unitPrice * quantity });
+            }
+            long customer = randomCustomer();
+            orderRows.add(new Object[] { orderId, customer, randomTime(), statuses[random.nextInt(statuses.length)],
+                    Math.round(total * 100) / 100.0, (customer % 9999) + " Market Street" });
+
+            if (orderRows.size() >= BATCH_SIZE) {
+                db.executeBatch(orderSql, orderRows);
+                lines += db.executeBatch(lineSql, lineRows);
+                orderRows.clear();
+                lineRows.clear();
+            }
+        }
+        db.executeBatch(orderSql, orderRows);
+        lines += db.executeBatch(lineSql, lineRows);
+
+        report("orders", orders, started);
+        System.out.println("[DatasetGenerator] order_items: " + lines + " rows");
+    }
+
+    private void generateMessages() {
+        long conversations = Math.min(options.get("conversations"), Math.max(1, customers) * SUBJECTS.length);
+        long messages = options.get("messages");
+        if (conversations == 0)
+            return;
+
+        // Conversation i belongs to customer (i % customers) with subject (i / customers), so (customer, subject)
+        // stays unique like getOrCreateConversation expects
+        insert("conversations", "INSERT INTO conversations(id, customer_id, subject, created_at) VALUES (?, ?, ?, ?)",
+                conversations, i -> new Object[] { conversationBase + i + 1, conversationCustomer(i),
+                        SUBJECTS[(int) (i / Math.max(1, customers)) % SUBJECTS.length], randomTime() / 1000 });
+
+        insert("messages", "INSERT INTO messages(conversation_id, user_id, role, content, is_read, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", messages, i -> {
+                    long c = (long) (random.nextDouble() * conversations);
+                    boolean fromCustomer = staff == 0 || random.nextBoolean();
+                    long userId = fromCustomer ? conversationCustomer(c) : userBase + customers + 1 + random.nextInt((int) staff);
+                    return new Object[] { conversationBase + c + 1, userId, fromCustomer ? "Customer" : "Staff",
+                            pick(PHRASES), random.nextInt(4) == 0 ? 0 : 1, randomTime() / 1000 };
+                });
+    }
+
+    // =====================================================================
+    // HELPERS
+    // =====================================================================
+
+    /** Insert count generated rows in batches of BATCH_SIZE */
+    private void insert(String table, String sql, long count, LongFunction<Object[]> row) {
+        long started = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+        for (long i = 0; i < count; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() >= BATCH_SIZE) {
+                db.executeBatch(sql, batch);
+                batch.clear();
+            }
+        }
+        db.executeBatch(sql, batch);
+
+        report(table, count, started);
+    }
+
+    private void report(String table, long rows, long started) {
+        long ms = Math.max(1, System.currentTimeMillis() - started);
+        System.out.printf("[DatasetGenerator] %s: %d rows in %.1f s (%.0f rows/s)%n",
+                table, rows, ms / 1000.0, rows * 1000.0 / ms);
+    }
+
+    private long maxId(String table) {
+        Long max = db.queryOne("SELECT COALESCE(MAX(id), 0) FROM " + table, rs -> rs.getLong(1));
+        return max == null ? 0 : max;
+    }
+
+    private long randomCustomer() {
+        return userBase + 1 + (long) (random.nextDouble() * Math.max(1, customers));
+    }
+
+    private long conversationCustomer(long conversationIndex) {
+        return userBase + 1 + conversationIndex % Math.max(1, customers);
+    }
+
+    /** Skewed towards low ids so a few items are hot, like real catalogs */
+    private long popularItem() {
+        double r = random.nextDouble();
+        return itemBase + 1 + (long) (r * r * r * Math.max(1, itemCount));
+    }
+
+    /** Random timestamp (ms) within the last "days" days */
+    private long randomTime() {
+        long span = options.get("days") * 86_400_000L;
+        return now - (long) (random.nextDouble() * span);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,134 @@
+package com.tools;
+
+import com.common.Database;
+import com.common.DatabaseProfile;
+import com.entities.Item;
+import com.repository.InMemoryItemRepository;
+import com.repository.ItemRepository;
+import com.repository.SQLiteItemRepository;
+import com.repository.ShardedStockItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkout benchmark for one hot item: concurrent buyer threads take one unit
+ * at a time with tryDecreaseStock until the stock runs out, first against the
+ * item row, then with the item's stock sharded.
+ *
+ * Each run prints throughput and checks that exactly the initial stock was
+ * sold and none is left (no oversell, no lost units).
+ *
+ * Usage:
+ * java -cp "lib/*:src" com.tools.StockBenchmark --threads=16 --stock=200000 \
+ * --shards=8 --rounds=3 --db=bench.db
+ *
+ * Options (defaults in parentheses): threads (16), stock (200000), shards (8),
+ * rounds (3), db (none: in-memory repository). With --db the item is created
+ * in that SQLite database and deleted afterwards.
+ */
+public class StockBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, Long> options = new HashMap<>(Map.of(
+                "threads", 16L, "stock", 200_000L, "shards", 8L, "rounds", 3L));
+        String dbPath = null;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("[StockBenchmark] Ignoring argument: " + arg);
+                continue;
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (key.equals("db")) {
+                dbPath = value;
+            } else if (options.containsKey(key)) {
+                options.put(key, Long.parseLong(value.replace("_", "")));
+            } else {
+                System.err.println("[StockBenchmark] Unknown option: " + key);
+            }
+        }
+
+        int threads = options.get("threads").intValue();
+        int stock = options.get("stock").intValue();
+        int shards = options.get("shards").intValue();
+        int rounds = options.get("rounds").intValue();
+
+        Database db = null;
+        ItemRepository repo;
+        if (dbPath != null) {
+            db = new Database();
+            db.connect("jdbc:sqlite:" + dbPath, DatabaseProfile.THROUGHPUT);
+            repo = new SQLiteItemRepository(db);
+        } else {
+            repo = new InMemoryItemRepository();
+        }
+
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                run("row", repo, 0, threads, stock, round);
+                run(shards + " shards", repo, shards, threads, stock, round);
+            }
+        } finally {
+            if (db != null)
+                db.close();
+        }
+    }
+
+    private static void run(String label, ItemRepository base, int shardCount, int threads, int stock, int round)
+            throws InterruptedException {
+        int itemId = base.insert(new Item(0, "Benchmark Item", "Flash sale", "Benchmark", 1.0, stock, 0));
+        ItemRepository repo = base;
+        ShardedStockItemRepository sharded = null;
+        if (shardCount > 0) {
+            // Not started: the row is written once, by unshard, after the sale
+            sharded = new ShardedStockItemRepository(base);
+            sharded.shard(itemId, shardCount);
+            repo = sharded;
+        }
+
+        AtomicLong sold = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> buyers = new ArrayList<>();
+        ItemRepository target = repo;
+        for (int t = 0; t < threads; t++) {
+            Thread buyer = new Thread(() -> {
+                long mine = 0;
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (target.tryDecreaseStock(itemId, 1))
+                    mine++;
+                sold.addAndGet(mine);
+            }, "Buyer-" + t);
+            buyers.add(buyer);
+            buyer.start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread buyer : buyers)
+            buyer.join();
+        long nanos = System.nanoTime() - start;
+
+        if (sharded != null)
+            sharded.unshard(itemId);
+        int left = base.findById(itemId).getStockQuantity();
+        base.delete(itemId);
+
+        boolean exact = sold.get() == stock && left == 0;
+        System.out.printf("[StockBenchmark] round %d %-10s %2d threads: %,d units in %d ms = %,.0f checkouts/s%s%n",
+                round, label, threads, sold.get(), nanos / 1_000_000, sold.get() * 1e9 / nanos,
+                exact ? "" : "  MISMATCH: sold " + sold.get() + " of " + stock + ", " + left + " left");
+    }
+}
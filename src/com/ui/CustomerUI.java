@@ -8,8 +8,18 @@ import com.common.dto.order.OrderCreateRequest;
 import com.common.dto.order.OrderCreateRequest.OrderItemRequest;
 import com.common.dto.wishlist.WishlistAddRequest;
 import com.common.dto.wishlist.WishlistRemoveRequest;
+import com.common.dto.item.ItemFacets;
+import com.common.dto.item.ItemFilter;
 import com.common.dto.item.ItemLikeRequest;
+import com.common.dto.item.ItemPage;
+import com.common.dto.item.ItemPageRequest;
+import com.common.dto.item.ItemRankingRequest;
+import com.common.dto.item.ItemRecommendationRequest;
+import com.common.dto.item.ItemSearchRequest;
+import com.common.dto.item.ItemSort;
+import com.common.dto.item.ItemSuggestRequest;
 import com.entities.Item;
+import com.entities.ItemRanking;
 import com.entities.Order;
 import com.entities.PaymentCard;
 import com.entities.User;
@@ -19,7 +29,6 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +39,11 @@ public class CustomerUI {
 
     private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    private static final int BROWSE_PAGE_SIZE = 10;
+    private static final int SUGGESTION_COUNT = 5;
+    private static final int RECOMMENDATION_COUNT = 5;
+    private static final int TRENDING_COUNT = 10;
+
     public static void showMenu(Scanner scanner, AsyncMessageBroker broker) {
         UIHelper.clear();
 
@@ -67,27 +81,20 @@ public class CustomerUI {
     // WISHLIST PURCHASE FLOW
     // ======================================================
     private static boolean handleWishlistPurchase(Scanner scanner, AsyncMessageBroker broker,
-            List<com.entities.Wishlist> wishlistEntries, List<Item> catalog) {
+            List<com.entities.Wishlist> wishlistEntries, Map<Integer, Item> itemMap) {
         if (wishlistEntries == null || wishlistEntries.isEmpty()) {
             System.out.println(UIHelper.YELLOW + "Your wishlist is empty." + UIHelper.RESET);
             return false;
         }
 
-        if (catalog == null || catalog.isEmpty()) {
-            catalog = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                    EventType.ITEM_LIST_RETURNED, 3000);
-        }
+        if (itemMap == null || itemMap.isEmpty())
+            itemMap = lookupItems(broker, wishlistItemIds(wishlistEntries));
 
-        if (catalog == null || catalog.isEmpty()) {
+        if (itemMap == null || itemMap.isEmpty()) {
             System.out.println(UIHelper.RED + "Unable to load item catalog. Please try again later." + UIHelper.RESET);
             return false;
         }
 
-        Map<Integer, Item> itemMap = new HashMap<>();
-        for (Item item : catalog) {
-            itemMap.put(item.getId(), item);
-        }
-
         while (true) {
             System.out.println(UIHelper.YELLOW + "Purchase wishlist items:" + UIHelper.RESET);
             System.out.println("1. Purchase all items");
@@ -239,102 +246,277 @@ public class CustomerUI {
         return ids;
     }
     public static void browse(Scanner scanner, AsyncMessageBroker broker) {
-        // broker.publish(EventType.ITEM_BROWSE_REQUESTED, new ItemBrowseRequest());
+        String cursor = null;
+        ItemFilter filter = null;
+        ItemSort sort = ItemSort.POPULAR;
+        int pageNumber = 1;
+
+        pages: while (true) {
+            ItemPage page = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED,
+                    new ItemPageRequest(sort, BROWSE_PAGE_SIZE, cursor, filter),
+                    EventType.ITEM_PAGE_RETURNED, 3000);
+
+            if (page == null || page.getItems().isEmpty()) {
+                System.out.println(UIHelper.YELLOW + "No items available." + UIHelper.RESET);
+                UIHelper.pause();
+                return;
+            }
 
-        List<Item> items = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                EventType.ITEM_LIST_RETURNED, 3000);
+            List<Item> items = page.getItems();
+
+            String title = filter == null || filter.isEmpty() ? "ALL ITEMS" : "FILTERED ITEMS";
+            System.out.println(UIHelper.CYAN + "--- " + title + " (page " + pageNumber + ") ---" + UIHelper.RESET);
+            printFacets(page.getFacets());
+            for (Item i : items) {
+                List<String> boxLines = List.of(
+                        String.format("Description: %s", i.getDescription()),
+                        String.format("Price: $%.2f", i.getPrice()),
+                        String.format("Stock: %d available", i.getStockQuantity()),
+                        String.format("Likes: %d", i.getLikeCount()));
+
+                UIHelper.box(
+                        UIHelper.color(String.format("#%d %s", i.getId(), i.getName()), UIHelper.GREEN),
+                        boxLines);
+            }
 
-        if (items == null || items.isEmpty()) {
-            System.out.println(UIHelper.YELLOW + "No items available." + UIHelper.RESET);
-            UIHelper.pause();
-            return;
-        }
+            while (true) {
+                System.out.println(UIHelper.YELLOW + "Actions:" + UIHelper.RESET);
+                System.out.println("1. Add to Wishlist");
+                System.out.println("2. Like Item");
+                System.out.println("3. Buy Now");
+                System.out.println("4. Back to main menu");
+                if (page.hasNext())
+                    System.out.println("5. Next page");
+                System.out.println("6. Filter / sort");
+                System.out.println("7. Customers also liked...");
+                System.out.println("8. Trending now");
+                System.out.print(UIHelper.YELLOW + "Select an option: " + UIHelper.RESET);
 
-        System.out.println(UIHelper.CYAN + "--- ALL ITEMS ---" + UIHelper.RESET);
-        for (Item i : items) {
-            List<String> boxLines = List.of(
-                    String.format("Description: %s", i.getDescription()),
-                    String.format("Price: $%.2f", i.getPrice()),
-                    String.format("Stock: %d available", i.getStockQuantity()),
-                    String.format("Likes: %d", i.getLikeCount()));
+                String choice = scanner.nextLine().trim();
 
-            UIHelper.box(
-                    UIHelper.color(String.format("#%d %s", i.getId(), i.getName()), UIHelper.GREEN),
-                    boxLines);
-        }
+                switch (choice) {
+                    case "1" -> {
+                        if (!requireLoggedInForAction("add items to a wishlist")) {
+                            continue;
+                        }
+                        System.out.print("Enter Item ID to add to Wishlist: ");
+                        String idInput = scanner.nextLine().trim();
+                        Integer itemId = parseItemId(idInput);
+                        if (itemId == null)
+                            continue;
 
-        while (true) {
-            System.out.println(UIHelper.YELLOW + "Actions:" + UIHelper.RESET);
-            System.out.println("1. Add to Wishlist");
-            System.out.println("2. Like Item");
-            System.out.println("3. Buy Now");
-            System.out.println("4. Back to main menu");
-            System.out.print(UIHelper.YELLOW + "Select an option: " + UIHelper.RESET);
+                        Item selected = items.stream().filter(it -> it.getId() == itemId).findFirst().orElse(null);
+                        if (selected == null) {
+                            System.out.println(UIHelper.RED + "Item not found." + UIHelper.RESET);
+                            continue;
+                        }
 
-            String choice = scanner.nextLine().trim();
+                        broker.publish(EventType.WISHLIST_ADD_REQUESTED,
+                                new WishlistAddRequest(Main.currentUser.getId(), itemId, 1));
 
-            switch (choice) {
-                case "1" -> {
-                    if (!requireLoggedInForAction("add items to a wishlist")) {
-                        continue;
-                    }
-                    System.out.print("Enter Item ID to add to Wishlist: ");
-                    String idInput = scanner.nextLine().trim();
-                    Integer itemId = parseItemId(idInput);
-                    if (itemId == null)
-                        continue;
-
-                    Item selected = items.stream().filter(it -> it.getId() == itemId).findFirst().orElse(null);
-                    if (selected == null) {
-                        System.out.println(UIHelper.RED + "Item not found." + UIHelper.RESET);
-                        continue;
+                        System.out.println(
+                                UIHelper.GREEN + "Added '" + selected.getName() + "' to your wishlist." + UIHelper.RESET);
+                        UIHelper.pause();
                     }
 
-                    broker.publish(EventType.WISHLIST_ADD_REQUESTED,
-                            new WishlistAddRequest(Main.currentUser.getId(), itemId, 1));
+                    case "2" -> {
+                        if (!requireLoggedInForAction("like an item")) {
+                            continue;
+                        }
+                        System.out.print("Enter ItemID to like: ");
+                        String idInput = scanner.nextLine().trim();
+                        Integer itemId = parseItemId(idInput);
+                        if (itemId == null)
+                            continue;
 
-                    System.out.println(
-                            UIHelper.GREEN + "Added '" + selected.getName() + "' to your wishlist." + UIHelper.RESET);
-                    UIHelper.pause();
-                }
+                        Item selected = items.stream().filter(it -> it.getId() == itemId).findFirst().orElse(null);
+                        if (selected == null) {
+                            System.out.println(UIHelper.RED + "Item not found." + UIHelper.RESET);
+                            continue;
+                        }
 
-                case "2" -> {
-                    if (!requireLoggedInForAction("like an item")) {
-                        continue;
+                        broker.publish(EventType.ITEM_LIKE_REQUESTED,
+                                new ItemLikeRequest(Main.currentUser.getId(), itemId));
+                        System.out.println(UIHelper.GREEN + "You liked '" + selected.getName() + "'." + UIHelper.RESET);
+                        UIHelper.pause();
                     }
-                    System.out.print("Enter ItemID to like: ");
-                    String idInput = scanner.nextLine().trim();
-                    Integer itemId = parseItemId(idInput);
-                    if (itemId == null)
-                        continue;
-
-                    Item selected = items.stream().filter(it -> it.getId() == itemId).findFirst().orElse(null);
-                    if (selected == null) {
-                        System.out.println(UIHelper.RED + "Item not found." + UIHelper.RESET);
-                        continue;
+                    case "3" -> {
+                        if (!requireLoggedInForAction("purchase an item")) {
+                            continue;
+                        }
+                        purchase(scanner, broker);
+                        UIHelper.pause();
+                        return;
                     }
-
-                    broker.publish(EventType.ITEM_LIKE_REQUESTED,
-                            new ItemLikeRequest(Main.currentUser.getId(), itemId));
-                    System.out.println(UIHelper.GREEN + "You liked '" + selected.getName() + "'." + UIHelper.RESET);
-                    UIHelper.pause();
-                }
-                case "3" -> {
-                    if (!requireLoggedInForAction("purchase an item")) {
-                        continue;
+                    case "4" -> {
+                        return;
                     }
-                    purchase(scanner, broker);
-                    UIHelper.pause();
-                    return;
-                }
-                case "4" -> {
-                    return;
+                    case "5" -> {
+                        if (!page.hasNext()) {
+                            System.out.println(UIHelper.RED + "Invalid Input" + UIHelper.RESET);
+                            continue;
+                        }
+                        cursor = page.getNextCursor();
+                        pageNumber++;
+                        continue pages;
+                    }
+                    case "6" -> {
+                        filter = readFilter(scanner);
+                        sort = readSort(scanner);
+                        cursor = null;
+                        pageNumber = 1;
+                        continue pages;
+                    }
+                    case "7" -> {
+                        System.out.print("Enter Item ID: ");
+                        Integer itemId = parseItemId(scanner.nextLine().trim());
+                        if (itemId == null)
+                            continue;
+                        showAlsoLiked(broker, itemId);
+                        UIHelper.pause();
+                    }
+                    case "8" -> {
+                        showTrending(broker);
+                        UIHelper.pause();
+                    }
+                    default -> System.out.println(UIHelper.RED + "Invalid Input" + UIHelper.RESET);
                 }
-                default -> System.out.println(UIHelper.RED + "Invalid Input" + UIHelper.RESET);
             }
         }
     }
 
+    /**
+     * Show the most liked names starting with prefix and return the chosen one,
+     * or prefix itself if nothing is chosen.
+     */
+    private static String pickSuggestion(Scanner scanner, AsyncMessageBroker broker, String prefix) {
+        List<ItemRanking> suggestions = BrokerUtils.requestOnce(broker, EventType.ITEM_SUGGEST_REQUESTED,
+                new ItemSuggestRequest(prefix, SUGGESTION_COUNT), EventType.ITEM_SUGGESTIONS_RETURNED, 3000);
+        if (suggestions == null || suggestions.isEmpty()) {
+            System.out.println(UIHelper.YELLOW + "No suggestions for \"" + prefix + "\"." + UIHelper.RESET);
+            return prefix;
+        }
+
+        for (ItemRanking s : suggestions)
+            System.out.printf("%d. %s (%d likes)%n", s.getRank(), s.getItemName(), s.getLikeCount());
+        System.out.print("Pick a suggestion (Enter to search \"" + prefix + "\"): ");
+        String choice = scanner.nextLine().trim();
+        try {
+            int n = Integer.parseInt(choice);
+            if (n >= 1 && n <= suggestions.size())
+                return suggestions.get(n - 1).getItemName();
+        } catch (NumberFormatException ignored) {
+        }
+        return prefix;
+    }
+
+    /** The given items by id, without loading the catalog; null on timeout */
+    private static Map<Integer, Item> lookupItems(AsyncMessageBroker broker, List<Integer> ids) {
+        return BrokerUtils.requestOnce(broker, EventType.ITEM_LOOKUP_REQUESTED, ids,
+                EventType.ITEM_LOOKUP_RETURNED, 3000);
+    }
+
+    private static List<Integer> wishlistItemIds(List<com.entities.Wishlist> wishlistEntries) {
+        List<Integer> ids = new ArrayList<>(wishlistEntries.size());
+        for (com.entities.Wishlist w : wishlistEntries)
+            ids.add(w.getItemId());
+        return ids;
+    }
+
+    /** Items that customers interested in itemId were also interested in */
+    private static void showAlsoLiked(AsyncMessageBroker broker, int itemId) {
+        List<Item> recommended = BrokerUtils.requestOnce(broker, EventType.ITEM_RECOMMENDATIONS_REQUESTED,
+                new ItemRecommendationRequest(itemId, RECOMMENDATION_COUNT),
+                EventType.ITEM_RECOMMENDATIONS_RETURNED, 3000);
+        if (recommended == null || recommended.isEmpty()) {
+            System.out.println(UIHelper.YELLOW + "No recommendations for this item yet." + UIHelper.RESET);
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (Item i : recommended)
+            lines.add(String.format("#%d %s - $%.2f (%d likes)", i.getId(), i.getName(), i.getPrice(),
+                    i.getLikeCount()));
+        UIHelper.box(UIHelper.color("CUSTOMERS ALSO LIKED", UIHelper.GREEN), lines);
+    }
+
+    /** Items with the most recent likes, wishlist adds and purchases */
+    private static void showTrending(AsyncMessageBroker broker) {
+        List<ItemRanking> trending = BrokerUtils.requestOnce(broker, EventType.ITEM_TRENDING_REQUESTED,
+                new ItemRankingRequest(TRENDING_COUNT), EventType.ITEM_TRENDING_RETURNED, 3000);
+        if (trending == null || trending.isEmpty()) {
+            System.out.println(UIHelper.YELLOW + "Nothing is trending right now." + UIHelper.RESET);
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (ItemRanking r : trending)
+            lines.add(String.format("%d. #%d %s (score %.1f, %d likes)", r.getRank(), r.getItemId(),
+                    r.getItemName(), r.getScore(), r.getLikeCount()));
+        UIHelper.box(UIHelper.color("TRENDING NOW", UIHelper.GREEN), lines);
+    }
+
+    /** Category, price range ("10-50", "-50", "10-") and in-stock prompts; blank answers filter nothing */
+    private static ItemFilter readFilter(Scanner scanner) {
+        System.out.print("Category (blank for all): ");
+        String category = scanner.nextLine().trim();
+
+        Double minPrice = null;
+        Double maxPrice = null;
+        while (true) {
+            System.out.print("Price range, e.g. 10-50 (blank for any): ");
+            String range = scanner.nextLine().trim();
+            if (range.isEmpty())
+                break;
+            try {
+                int dash = range.indexOf('-');
+                String low = dash < 0 ? range : range.substring(0, dash).trim();
+                String high = dash < 0 ? range : range.substring(dash + 1).trim();
+                minPrice = low.isEmpty() ? null : Double.valueOf(low);
+                maxPrice = high.isEmpty() ? null : Double.valueOf(high);
+                if ((minPrice != null && minPrice < 0) || (maxPrice != null && maxPrice < 0)
+                        || (minPrice != null && maxPrice != null && minPrice > maxPrice))
+                    throw new NumberFormatException();
+                break;
+            } catch (NumberFormatException e) {
+                System.out.println(UIHelper.RED + "Invalid price range." + UIHelper.RESET);
+                minPrice = null;
+                maxPrice = null;
+            }
+        }
+
+        System.out.print("In stock only? (y/N): ");
+        boolean inStockOnly = scanner.nextLine().trim().equalsIgnoreCase("y");
+        return new ItemFilter(category, minPrice, maxPrice, inStockOnly);
+    }
+
+    private static ItemSort readSort(Scanner scanner) {
+        System.out.print("Sort: 1. Most liked  2. Newest  3. Price low-high  4. Price high-low [1]: ");
+        return switch (scanner.nextLine().trim()) {
+            case "2" -> ItemSort.NEWEST;
+            case "3" -> ItemSort.PRICE_LOW;
+            case "4" -> ItemSort.PRICE_HIGH;
+            default -> ItemSort.POPULAR;
+        };
+    }
+
+    /** One line of category counts and one of price-bucket counts */
+    private static void printFacets(ItemFacets facets) {
+        if (facets == null)
+            return;
+        List<String> categories = new ArrayList<>();
+        facets.getCategoryCounts().forEach((name, count) -> categories.add(name + " (" + count + ")"));
+        List<String> prices = new ArrayList<>();
+        facets.getPriceBucketCounts().forEach((label, count) -> {
+            if (count > 0)
+                prices.add(label + " (" + count + ")");
+        });
+        if (!categories.isEmpty())
+            System.out.println("Categories: " + String.join(", ", categories));
+        if (!prices.isEmpty())
+            System.out.println("Prices: " + String.join(", ", prices));
+    }
+
     private static boolean purchase(Scanner scanner, AsyncMessageBroker broker) {
         System.out.print("Enter Item ID to purchase: ");
         int itemId;
@@ -350,12 +532,8 @@ public class CustomerUI {
         }
 
         // Fetch item info
-        List<Item> items = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                EventType.ITEM_LIST_RETURNED, 3000);
-        Item item = null;
-        if (items != null) {
-            item = items.stream().filter(i -> i.getId() == itemId).findFirst().orElse(null);
-        }
+        Map<Integer, Item> found = lookupItems(broker, List.of(itemId));
+        Item item = found == null ? null : found.get(itemId);
 
         if (item == null) {
             System.out.println(UIHelper.RED + "Invalid item." + UIHelper.RESET);
@@ -604,14 +782,21 @@ public class CustomerUI {
     }
 
     public static void search(Scanner scanner, AsyncMessageBroker broker) {
-        System.out.print("Enter keywords: ");
+        System.out.print("Enter keywords (end with * for suggestions): ");
         String keyword = scanner.nextLine().trim();
+        if (keyword.endsWith("*"))
+            keyword = pickSuggestion(scanner, broker, keyword.substring(0, keyword.length() - 1));
+        ItemFilter filter = readFilter(scanner);
 
-        // Allow empty search to show all items
-        List<Item> result = BrokerUtils.requestOnce(broker, EventType.ITEM_SEARCH_REQUESTED, keyword,
-                EventType.ITEM_LIST_RETURNED, 3000);
+        ItemPage page = BrokerUtils.requestOnce(broker, EventType.ITEM_SEARCH_REQUESTED,
+                new ItemSearchRequest(keyword, filter.getCategory(), filter.getMinPrice(), filter.getMaxPrice(),
+                        null, filter.isInStockOnly()),
+                EventType.ITEM_PAGE_RETURNED, 3000);
+        List<Item> result = page == null ? null : page.getItems();
 
         System.out.println(UIHelper.CYAN + "--- SEARCH RESULTS ---" + UIHelper.RESET);
+        if (page != null)
+            printFacets(page.getFacets());
         if (result == null || result.isEmpty()) {
             System.out.println(UIHelper.YELLOW + "No items found." + UIHelper.RESET);
             UIHelper.pause();
@@ -724,16 +909,12 @@ public class CustomerUI {
             return;
         }
 
-        // Get all items to map ids to details
-        List<Item> items = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                EventType.ITEM_LIST_RETURNED, 3000);
+        // Load only the wishlisted items to map ids to details
+        Map<Integer, Item> items = lookupItems(broker, wishlistItemIds(wishlistEntries));
 
         List<String> boxLines = new ArrayList<>();
         for (com.entities.Wishlist w : wishlistEntries) {
-            Item it = null;
-            if (items != null) {
-                it = items.stream().filter(x -> x.getId() == w.getItemId()).findFirst().orElse(null);
-            }
+            Item it = items == null ? null : items.get(w.getItemId());
             if (it != null) {
                 boxLines.add(String.format("#%d %s - $%.2f (qty %d)",
                         it.getId(), it.getName(), it.getPrice(), Math.max(1, w.getQuantity())));
@@ -874,8 +1055,13 @@ public class CustomerUI {
             List<com.entities.OrderItem> orderItems = Main.getOrderItemRepository().findByOrderId(order.getId());
 
             if (orderItems != null && !orderItems.isEmpty()) {
+                List<Integer> itemIds = new ArrayList<>();
+                for (com.entities.OrderItem orderItem : orderItems)
+                    itemIds.add(orderItem.getItemId());
+                Map<Integer, Item> itemsById = Main.getItemRepository().findByIds(itemIds);
+
                 for (com.entities.OrderItem orderItem : orderItems) {
-                    com.entities.Item item = Main.getItemRepository().findById(orderItem.getItemId());
+                    com.entities.Item item = itemsById.get(orderItem.getItemId());
                     if (item != null) {
                         detailLines.add(String.format("  - %s", item.getName()));
                         if (item.getDescription() != null && !item.getDescription().isBlank()) {
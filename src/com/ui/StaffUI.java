@@ -5,6 +5,9 @@ import com.broker.AsyncMessageBroker;
 import com.broker.EventType;
 import com.common.dto.account.AccountViewRequest;
 import com.common.dto.item.ItemEditRequest;
+import com.common.dto.item.ItemPage;
+import com.common.dto.item.ItemPageRequest;
+import com.common.dto.item.ItemSort;
 import com.common.dto.item.ItemUploadRequest;
 import com.common.dto.message.ConversationLoadRequest;
 import com.common.dto.message.MessageSendRequest;
@@ -17,11 +20,14 @@ import com.entities.UserMessage;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 
 public class StaffUI {
 
+    private static final int BROWSE_PAGE_SIZE = 20;
+
     public static void showMenu(Scanner scanner, AsyncMessageBroker broker) {
         UIHelper.clear();
 
@@ -220,28 +226,45 @@ public class StaffUI {
     }
 
     public static void browse(Scanner scanner, AsyncMessageBroker broker) {
-        List<Item> items = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                EventType.ITEM_LIST_RETURNED, 3000);
+        String cursor = null;
+        int pageNumber = 1;
 
-        if (items == null || items.isEmpty()) {
-            System.out.println(UIHelper.YELLOW + "No items available." + UIHelper.RESET);
-            UIHelper.pause();
-            return;
-        }
+        while (true) {
+            ItemPage page = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED,
+                    new ItemPageRequest(ItemSort.POPULAR, BROWSE_PAGE_SIZE, cursor),
+                    EventType.ITEM_PAGE_RETURNED, 3000);
+
+            if (page == null || page.getItems().isEmpty()) {
+                System.out.println(UIHelper.YELLOW + "No items available." + UIHelper.RESET);
+                UIHelper.pause();
+                return;
+            }
 
-        System.out.println(UIHelper.CYAN + "--- ALL ITEMS ---" + UIHelper.RESET);
-        for (Item i : items) {
-            List<String> boxLines = List.of(
-                    String.format("Description: %s", i.getDescription()),
-                    String.format("Price: $%.2f", i.getPrice()),
-                    String.format("Stock: %d available", i.getStockQuantity()),
-                    String.format("Likes: %d", i.getLikeCount()));
-
-            UIHelper.box(
-                    UIHelper.color(String.format("#%d %s", i.getId(), i.getName()), UIHelper.GREEN),
-                    boxLines);
+            System.out.println(UIHelper.CYAN + "--- ALL ITEMS (page " + pageNumber + ") ---" + UIHelper.RESET);
+            for (Item i : page.getItems()) {
+                List<String> boxLines = List.of(
+                        String.format("Description: %s", i.getDescription()),
+                        String.format("Price: $%.2f", i.getPrice()),
+                        String.format("Stock: %d available", i.getStockQuantity()),
+                        String.format("Likes: %d", i.getLikeCount()));
+
+                UIHelper.box(
+                        UIHelper.color(String.format("#%d %s", i.getId(), i.getName()), UIHelper.GREEN),
+                        boxLines);
+            }
+
+            if (!page.hasNext()) {
+                UIHelper.pause();
+                return;
+            }
+
+            System.out.print(UIHelper.YELLOW + "Press Enter for the next page, or 'q' to go back: " + UIHelper.RESET);
+            if (scanner.nextLine().trim().equalsIgnoreCase("q"))
+                return;
+
+            cursor = page.getNextCursor();
+            pageNumber++;
         }
-        UIHelper.pause();
     }
 
     public static void refill(Scanner scanner, AsyncMessageBroker broker) {
@@ -250,6 +273,15 @@ public class StaffUI {
                 List.of(
                         "Provide the item ID and quantity to restock."));
 
+        List<Item> low = BrokerUtils.requestOnce(broker, EventType.ITEM_LOW_STOCK_REQUESTED, null,
+                EventType.ITEM_LOW_STOCK_RETURNED, 3000);
+        if (low != null && !low.isEmpty()) {
+            System.out.println(UIHelper.YELLOW + "Running low:" + UIHelper.RESET);
+            for (Item i : low)
+                System.out.printf("  #%d %s - %d left%n", i.getId(), i.getName(), i.getStockQuantity());
+            System.out.println();
+        }
+
         Integer id = readPositiveInt(scanner, "Item ID: ");
         if (id == null)
             return;
@@ -312,18 +344,10 @@ public class StaffUI {
         if (id == null)
             return;
 
-        // Optional: confirm item exists (load list and search)
-        List<Item> items = BrokerUtils.requestOnce(broker, EventType.ITEM_BROWSE_REQUESTED, null,
-                EventType.ITEM_LIST_RETURNED, 3000);
-        Item target = null;
-        if (items != null) {
-            for (Item i : items) {
-                if (i.getId() == id) {
-                    target = i;
-                    break;
-                }
-            }
-        }
+        // Confirm the item exists (looked up by id)
+        Map<Integer, Item> found = BrokerUtils.requestOnce(broker, EventType.ITEM_LOOKUP_REQUESTED, List.of(id),
+                EventType.ITEM_LOOKUP_RETURNED, 3000);
+        Item target = found == null ? null : found.get(id);
         if (target == null) {
             System.out.println(UIHelper.RED + "Item with ID " + id + " not found." + UIHelper.RESET);
             UIHelper.pause();